@@ -0,0 +1,343 @@
+package cf.lukasheinzl.graph;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * An immutable graph in compressed sparse row format. The nodes are identified by the ids 0 to
+ * {@link #getNodeCount()} - 1, the edges of a node are stored next to each other in one int array, the edges of node
+ * <code>n</code> have the indices {@link #getEdgeStart(int) getEdgeStart(n)} (inclusive) to
+ * {@link #getEdgeEnd(int) getEdgeEnd(n)} (exclusive). An edge uses 4 bytes for its target and 4 bytes for its weight,
+ * a graph of {@link cf.lukasheinzl.graph.Node Node} objects about 40 bytes.<br>
+ * A graph can be created from a list of nodes with {@link #fromNodes(List)} or from an edge list with
+ * {@link #fromEdges(int, int[], int[], int[])}. The algorithms of the {@link cf.lukasheinzl.graph.algorithm} package
+ * find paths in it with
+ * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#findPath(CsrGraph, int, int) findPath(CsrGraph, int, int)}.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class CsrGraph{
+
+	// the edges of node n are at the indices offsets[n] to offsets[n + 1] - 1
+	private int[]				offsets;
+	private int[]				targets;
+
+	// null if every edge has the weight 1
+	private int[]				weights;
+
+	// a consistent lower bound of the distance between two nodes used by AStar, may be null
+	private IntBinaryOperator	heuristic;
+
+	// the graph with all edges reversed, created when it is requested the first time
+	private volatile CsrGraph	reversed;
+
+	private CsrGraph(int[] offsets, int[] targets, int[] weights, IntBinaryOperator heuristic){
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Creates a graph from a list of nodes. The id of a node is its index in the list, the weight of an edge is the
+	 * {@link cf.lukasheinzl.graph.Node#getDistance(Node) distance} between its nodes. The graph has no heuristic, the
+	 * distance of two nodes is only a lower bound of the length of the path between them if it is not rounded, a
+	 * heuristic can be set with {@link #withHeuristic(IntBinaryOperator)}.
+	 * 
+	 * @param <T>
+	 *            The Type of the nodes
+	 * @param nodes
+	 *            The nodes of the graph
+	 * @return The graph
+	 * @throws IllegalArgumentException
+	 *             If a node is contained twice or links to a node that is not contained in the list
+	 */
+	public static <T extends Node<T>> CsrGraph fromNodes(List<T> nodes){
+		List<T> copy = new ArrayList<>(nodes);
+		Map<T, Integer> ids = new IdentityHashMap<>();
+
+		int edges = 0;
+		for(int i = 0; i < copy.size(); i++){
+			if(ids.put(copy.get(i), i) != null){
+				throw new IllegalArgumentException("The node at index " + i + " is contained twice");
+			}
+
+			edges += copy.get(i).getLinks().size();
+		}
+
+		int[] offsets = new int[copy.size() + 1];
+		int[] targets = new int[edges];
+		int[] weights = new int[edges];
+
+		int e = 0;
+		for(int i = 0; i < copy.size(); i++){
+			T n = copy.get(i);
+
+			for(T link: n.getLinks()){
+				Integer id = ids.get(link);
+
+				if(id == null){
+					throw new IllegalArgumentException("The node at index " + i + " links to a node that is not contained");
+				}
+
+				targets[e] = id;
+				weights[e] = checkWeight(n.getDistance(link));
+				e++;
+			}
+
+			offsets[i + 1] = e;
+		}
+
+		return new CsrGraph(offsets, targets, weights, null);
+	}
+
+	/**
+	 * Creates a graph from an edge list. Edge i goes from node <code>sources[i]</code> to node
+	 * <code>targets[i]</code>, the edges of a node keep their order. The arrays are copied.
+	 * 
+	 * @param nodeCount
+	 *            The number of nodes
+	 * @param sources
+	 *            The start node of every edge
+	 * @param targets
+	 *            The end node of every edge
+	 * @param weights
+	 *            The weight of every edge or null if every edge has the weight 1
+	 * @return The graph
+	 * @throws IllegalArgumentException
+	 *             If the arrays have different lengths, an id is not a node or a weight is negative
+	 */
+	public static CsrGraph fromEdges(int nodeCount, int[] sources, int[] targets, int[] weights){
+		if(nodeCount < 0){
+			throw new IllegalArgumentException("Negative node count: " + nodeCount);
+		}
+
+		if(sources.length != targets.length || weights != null && weights.length != sources.length){
+			throw new IllegalArgumentException("The arrays have different lengths");
+		}
+
+		int[] offsets = new int[nodeCount + 1];
+		for(int i = 0; i < sources.length; i++){
+			checkNode(sources[i], nodeCount);
+			checkNode(targets[i], nodeCount);
+			offsets[sources[i] + 1]++;
+		}
+
+		for(int i = 0; i < nodeCount; i++){
+			offsets[i + 1] += offsets[i];
+		}
+
+		// a counting sort by the start node, the next free index of every node
+		int[] next = new int[nodeCount];
+		System.arraycopy(offsets, 0, next, 0, nodeCount);
+
+		int[] sortedTargets = new int[sources.length];
+		int[] sortedWeights = weights == null ? null : new int[sources.length];
+
+		for(int i = 0; i < sources.length; i++){
+			int e = next[sources[i]]++;
+			sortedTargets[e] = targets[i];
+
+			if(weights != null){
+				sortedWeights[e] = checkWeight(weights[i]);
+			}
+		}
+
+		return new CsrGraph(offsets, sortedTargets, sortedWeights, null);
+	}
+
+	/**
+	 * Returns a graph with the same nodes and edges and the given heuristic. The arrays are shared, not copied.<br>
+	 * The heuristic must be consistent: the estimate from a node is never more than the weight of an edge from it plus
+	 * the estimate from the node the edge leads to. The A* searches of the
+	 * {@link cf.lukasheinzl.graph.algorithm} package do not look at a node again once it is closed and may return a
+	 * longer path otherwise.
+	 * 
+	 * @param heuristic
+	 *            A function returning a consistent lower bound of the distance between two nodes or null to use none
+	 * @return The graph
+	 */
+	public CsrGraph withHeuristic(IntBinaryOperator heuristic){
+		return new CsrGraph(offsets, targets, weights, heuristic);
+	}
+
+	/**
+	 * Returns the graph with the same nodes and all edges reversed, the heuristic is reversed as well. It is created by
+	 * the first call and then kept, the reversed graph of the reversed graph is this graph.
+	 * 
+	 * @return The reversed graph
+	 */
+	public CsrGraph reverse(){
+		CsrGraph r = reversed;
+
+		if(r == null){
+			int count = getNodeCount();
+			int[] revOffsets = new int[count + 1];
+
+			for(int t: targets){
+				revOffsets[t + 1]++;
+			}
+
+			for(int i = 0; i < count; i++){
+				revOffsets[i + 1] += revOffsets[i];
+			}
+
+			int[] next = new int[count];
+			System.arraycopy(revOffsets, 0, next, 0, count);
+
+			int[] revTargets = new int[targets.length];
+			int[] revWeights = weights == null ? null : new int[targets.length];
+
+			for(int n = 0; n < count; n++){
+				for(int e = offsets[n]; e < offsets[n + 1]; e++){
+					int i = next[targets[e]]++;
+					revTargets[i] = n;
+
+					if(weights != null){
+						revWeights[i] = weights[e];
+					}
+				}
+			}
+
+			IntBinaryOperator h = heuristic;
+			r = new CsrGraph(revOffsets, revTargets, revWeights, h == null ? null : (a, b) -> h.applyAsInt(b, a));
+			r.reversed = this;
+			reversed = r;
+		}
+
+		return r;
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 * 
+	 * @return The number of nodes
+	 */
+	public int getNodeCount(){
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the number of edges.
+	 * 
+	 * @return The number of edges
+	 */
+	public int getEdgeCount(){
+		return targets.length;
+	}
+
+	/**
+	 * Returns the index of the first edge of the given node.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The index of the first edge (inclusive)
+	 * @throws IndexOutOfBoundsException
+	 *             If the node does not exist
+	 */
+	public int getEdgeStart(int node){
+		return offsets[node];
+	}
+
+	/**
+	 * Returns the index after the last edge of the given node.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The index after the last edge (exclusive)
+	 * @throws IndexOutOfBoundsException
+	 *             If the node does not exist
+	 */
+	public int getEdgeEnd(int node){
+		return offsets[node + 1];
+	}
+
+	/**
+	 * Returns the number of edges of the given node.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The number of edges
+	 * @throws IndexOutOfBoundsException
+	 *             If the node does not exist
+	 */
+	public int getDegree(int node){
+		return offsets[node + 1] - offsets[node];
+	}
+
+	/**
+	 * Returns the node the given edge leads to.
+	 * 
+	 * @param edge
+	 *            The index of the edge
+	 * @return The id of the node
+	 * @throws IndexOutOfBoundsException
+	 *             If the edge does not exist
+	 */
+	public int getTarget(int edge){
+		return targets[edge];
+	}
+
+	/**
+	 * Returns the weight of the given edge.
+	 * 
+	 * @param edge
+	 *            The index of the edge
+	 * @return The weight, 1 if this graph is not weighted
+	 * @throws IndexOutOfBoundsException
+	 *             If the edge does not exist
+	 */
+	public int getWeight(int edge){
+		if(weights == null){
+			if(edge < 0 || edge >= targets.length){
+				throw new IndexOutOfBoundsException("Edge: " + edge + ", Edge count: " + targets.length);
+			}
+
+			return 1;
+		}
+
+		return weights[edge];
+	}
+
+	/**
+	 * Checks if the edges of this graph have weights.
+	 * 
+	 * @return False if every edge has the weight 1
+	 */
+	public boolean isWeighted(){
+		return weights != null;
+	}
+
+	/**
+	 * Returns the heuristic of this graph.
+	 * 
+	 * @return A function returning a lower bound of the distance between two nodes or null if there is none
+	 */
+	public IntBinaryOperator getHeuristic(){
+		return heuristic;
+	}
+
+	@Override
+	public String toString(){
+		return "CsrGraph " + getNodeCount() + " nodes " + getEdgeCount() + " edges";
+	}
+
+	private static void checkNode(int node, int nodeCount){
+		if(node < 0 || node >= nodeCount){
+			throw new IllegalArgumentException("Node: " + node + ", Node count: " + nodeCount);
+		}
+	}
+
+	private static int checkWeight(int weight){
+		if(weight < 0){
+			throw new IllegalArgumentException("Negative weight: " + weight);
+		}
+
+		return weight;
+	}
+
+}
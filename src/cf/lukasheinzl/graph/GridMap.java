@@ -0,0 +1,292 @@
+package cf.lukasheinzl.graph;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A grid of cells that are either free or blocked, stored as bits by row and by column. A path can move from a cell
+ * to its 8 neighbours, but only diagonally if both cells it passes are free as well (it can not cut corners). Every
+ * move costs 1, like the {@link cf.lukasheinzl.graph.CoordinateNode#getDistance(CoordinateNode) distance} of
+ * neighbouring CoordinateNodes.<br>
+ * A cell is identified by its index <code>y * width + x</code>. Paths are found with
+ * {@link cf.lukasheinzl.graph.algorithm.JumpPointSearch JumpPointSearch}, no nodes or links are needed.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class GridMap{
+
+	private int		width;
+	private int		height;
+
+	// the bit of a cell is set if it is blocked, the rows are stored one after another in blocked and the columns in
+	// blockedColumns, so lines in both directions can be searched a word at a time
+	private BitSet	blocked;
+	private BitSet	blockedColumns;
+
+	/**
+	 * Constructs a new GridMap where all cells are free.
+	 * 
+	 * @param width
+	 *            The number of columns
+	 * @param height
+	 *            The number of rows
+	 * @throws IllegalArgumentException
+	 *             If the width or height is negative or the grid has more than {@link java.lang.Integer#MAX_VALUE}
+	 *             cells
+	 */
+	public GridMap(int width, int height){
+		if(width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		}
+
+		this.width = width;
+		this.height = height;
+		this.blocked = new BitSet(width * height);
+		this.blockedColumns = new BitSet(width * height);
+	}
+
+	/**
+	 * Creates a grid from a list of nodes. The cells with a node are free, all other cells are blocked. The links of
+	 * the nodes are ignored, the cells are connected to their neighbours.
+	 * 
+	 * @param nodes
+	 *            The nodes
+	 * @return The grid, it is as big as needed for the biggest coordinates
+	 * @throws IllegalArgumentException
+	 *             If a node has a negative coordinate
+	 */
+	public static GridMap fromNodes(List<CoordinateNode> nodes){
+		int width = 0;
+		int height = 0;
+
+		for(CoordinateNode n: nodes){
+			if(n.getX() < 0 || n.getY() < 0){
+				throw new IllegalArgumentException("Negative coordinate: " + n.getX() + ", " + n.getY());
+			}
+
+			width = Math.max(width, n.getX() + 1);
+			height = Math.max(height, n.getY() + 1);
+		}
+
+		GridMap grid = new GridMap(width, height);
+		grid.blocked.set(0, width * height);
+		grid.blockedColumns.set(0, width * height);
+
+		for(CoordinateNode n: nodes){
+			grid.setBlocked(n.getX(), n.getY(), false);
+		}
+
+		return grid;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 * 
+	 * @return The width
+	 */
+	public int getWidth(){
+		return width;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 * 
+	 * @return The height
+	 */
+	public int getHeight(){
+		return height;
+	}
+
+	/**
+	 * Returns the index of the cell at the given coordinates.
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return The index of the cell
+	 * @throws IndexOutOfBoundsException
+	 *             If the coordinates are outside of the grid
+	 */
+	public int getCell(int x, int y){
+		if(x < 0 || y < 0 || x >= width || y >= height){
+			throw new IndexOutOfBoundsException("Cell: " + x + ", " + y + ", Size: " + width + "x" + height);
+		}
+
+		return y * width + x;
+	}
+
+	/**
+	 * Returns the x coordinate of the given cell.
+	 * 
+	 * @param cell
+	 *            The index of the cell
+	 * @return The x coordinate
+	 */
+	public int getX(int cell){
+		return cell % width;
+	}
+
+	/**
+	 * Returns the y coordinate of the given cell.
+	 * 
+	 * @param cell
+	 *            The index of the cell
+	 * @return The y coordinate
+	 */
+	public int getY(int cell){
+		return cell / width;
+	}
+
+	/**
+	 * Checks if the cell at the given coordinates can be entered.
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @return False if the cell is blocked or outside of the grid
+	 */
+	public boolean isFree(int x, int y){
+		return x >= 0 && y >= 0 && x < width && y < height && !blocked.get(y * width + x);
+	}
+
+	/**
+	 * Blocks or frees the cell at the given coordinates.
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param blocked
+	 *            True to block the cell, false to free it
+	 * @throws IndexOutOfBoundsException
+	 *             If the coordinates are outside of the grid
+	 */
+	public void setBlocked(int x, int y, boolean blocked){
+		this.blocked.set(getCell(x, y), blocked);
+		this.blockedColumns.set(x * height + y, blocked);
+	}
+
+	/**
+	 * Counts the free cells from the given cell on in a horizontal or vertical direction, cells outside of the grid are
+	 * blocked.
+	 * 
+	 * @param x
+	 *            The x coordinate
+	 * @param y
+	 *            The y coordinate
+	 * @param dx
+	 *            The horizontal direction, -1, 0 or 1
+	 * @param dy
+	 *            The vertical direction, -1, 0 or 1
+	 * @return The number of steps to the first blocked cell, 0 if the given cell is blocked
+	 * @throws IllegalArgumentException
+	 *             If the direction is not horizontal or vertical
+	 */
+	public int nextBlocked(int x, int y, int dx, int dy){
+		checkDirection(dx, dy);
+
+		if(!isFree(x, y)){
+			return 0;
+		}
+
+		if(dy == 0){
+			return nextBlocked(blocked, y * width, width, x, dx);
+		}
+
+		return nextBlocked(blockedColumns, x * height, height, y, dy);
+	}
+
+	/**
+	 * Searches the first free cell from the given cell on in a horizontal or vertical direction, cells outside of the
+	 * grid are blocked.
+	 * 
+	 * @param x
+	 *            The x coordinate, may be outside of the grid
+	 * @param y
+	 *            The y coordinate, may be outside of the grid
+	 * @param dx
+	 *            The horizontal direction, -1, 0 or 1
+	 * @param dy
+	 *            The vertical direction, -1, 0 or 1
+	 * @return The number of steps to the first free cell, 0 if the given cell is free, or -1 if there is no free cell
+	 *         in that direction
+	 * @throws IllegalArgumentException
+	 *             If the direction is not horizontal or vertical
+	 */
+	public int nextFree(int x, int y, int dx, int dy){
+		checkDirection(dx, dy);
+
+		if(dy == 0){
+			return y < 0 || y >= height ? -1 : nextFree(blocked, y * width, width, x, dx);
+		}
+
+		return x < 0 || x >= width ? -1 : nextFree(blockedColumns, x * height, height, y, dy);
+	}
+
+	private static void checkDirection(int dx, int dy){
+		if(dx != 0 && dy != 0 || dx == dy || Math.abs(dx) > 1 || Math.abs(dy) > 1){
+			throw new IllegalArgumentException("Not a horizontal or vertical direction: " + dx + ", " + dy);
+		}
+	}
+
+	/**
+	 * Searches the line of length cells that starts at the given bit for the first blocked cell, the cell at pos is
+	 * free.
+	 */
+	private static int nextBlocked(BitSet bits, int start, int length, int pos, int dir){
+		if(dir > 0){
+			int i = bits.nextSetBit(start + pos);
+			return (i == -1 || i >= start + length ? length : i - start) - pos;
+		}
+
+		int i = bits.previousSetBit(start + pos);
+		return pos - (i < start ? -1 : i - start);
+	}
+
+	/**
+	 * Searches the line of length cells that starts at the given bit for the first free cell, pos may be outside of
+	 * the line.
+	 */
+	private static int nextFree(BitSet bits, int start, int length, int pos, int dir){
+		if(dir > 0){
+			int from = Math.max(pos, 0);
+			if(from >= length){
+				return -1;
+			}
+
+			int i = bits.nextClearBit(start + from) - start;
+			return i >= length ? -1 : i - pos;
+		}
+
+		int from = Math.min(pos, length - 1);
+		if(from < 0){
+			return -1;
+		}
+
+		int i = bits.previousClearBit(start + from) - start;
+		return i < 0 ? -1 : pos - i;
+	}
+
+	/**
+	 * Returns the length of the shortest path between two cells if no cell was blocked, the larger difference of their
+	 * coordinates.
+	 * 
+	 * @param a
+	 *            The index of the first cell
+	 * @param b
+	 *            The index of the second cell
+	 * @return The distance
+	 */
+	public int getDistance(int a, int b){
+		return Math.max(Math.abs(getX(a) - getX(b)), Math.abs(getY(a) - getY(b)));
+	}
+
+	@Override
+	public String toString(){
+		return "GridMap " + width + "x" + height + " " + blocked.cardinality() + " blocked";
+	}
+
+}
@@ -1,6 +1,7 @@
 package cf.lukasheinzl.graph;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,32 +14,72 @@ import java.util.List;
  */
 public abstract class Node<T extends Node<T>>{
 
-	private List<T> links;
+	private List<T>	links;
+
+	// the nodes that link to this one, used by searches that go from the end node backwards
+	private List<T>	reverseLinks;
+
+	// the views returned by the getters, the links must only be changed by link and unlink to keep both lists in sync
+	private List<T>	linksView;
+	private List<T>	reverseLinksView;
 
 	/**
 	 * Empty constructor, used for instance variable initialization
 	 */
 	public Node(){
 		links = new ArrayList<>();
+		reverseLinks = new ArrayList<>();
+		linksView = Collections.unmodifiableList(links);
+		reverseLinksView = Collections.unmodifiableList(reverseLinks);
 	}
 
 	/**
-	 * Returns a List&lt;T extends Node&lt;T&gt;&gt; containing all nodes linked to this one
+	 * Returns a List&lt;T extends Node&lt;T&gt;&gt; containing all nodes linked to this one. The list can not be
+	 * modified, links are changed with {@link #link(Node)} and {@link #unlink(Node)}.
 	 * 
 	 * @return The List of nodes
 	 */
 	public List<T> getLinks(){
-		return links;
+		return linksView;
+	}
+
+	/**
+	 * Returns a List&lt;T extends Node&lt;T&gt;&gt; containing all nodes that have this one in their
+	 * links, they are added by {@link #link(Node)}. The list can not be modified.
+	 * 
+	 * @return The List of nodes
+	 */
+	public List<T> getReverseLinks(){
+		return reverseLinksView;
 	}
 
 	/**
-	 * Links the other node to this one
+	 * Links the other node to this one and adds this node to the reverse links of the other one
 	 * 
 	 * @param other
 	 *            Node to be linked to this one
 	 */
+	@SuppressWarnings("unchecked")
 	public void link(T other){
 		links.add(other);
+		((Node<T>) other).reverseLinks.add((T) this);
+	}
+
+	/**
+	 * Removes the other node from the links of this one and this node from the reverse links of the other one. If the
+	 * other node was linked multiple times only one link is removed.
+	 * 
+	 * @param other
+	 *            Node to be unlinked from this one
+	 * @return True if the node was linked, false if nothing changed
+	 */
+	public boolean unlink(T other){
+		if(!links.remove(other)){
+			return false;
+		}
+
+		((Node<T>) other).reverseLinks.remove(this);
+		return true;
 	}
 
 	/**
@@ -3,9 +3,12 @@ package cf.lukasheinzl.graph.algorithm;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import cf.lukasheinzl.graph.CsrGraph;
 import cf.lukasheinzl.graph.Node;
 
 /**
@@ -19,26 +22,18 @@ import cf.lukasheinzl.graph.Node;
  */
 public class AStar<T extends Node<T>> implements GraphAlgorithm<T>{
 
-	private List<T>			nodeQueue;
-	private Map<T, T>		backtrackMap;
-	private List<T>			visited;
-	private Map<T, Integer>	startDistMap;
-	private Map<T, Integer>	totalDistMap;
+	static final AStar<?> INSTANCE = new AStar<>();
 
 	/**
-	 * Package-private constructor to initialize instance variables. Can only be called from
+	 * Package-private constructor, the shared instance can be obtained from
 	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
 	 */
 	AStar(){
-		nodeQueue = new ArrayList<>();
-		backtrackMap = new HashMap<>();
-		visited = new ArrayList<>();
-		startDistMap = new HashMap<>();
-		totalDistMap = new HashMap<>();
 	}
 
 	/**
-	 * Finds the path from the start node (first element) to the end node (last element in list)
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list)
 	 * 
 	 * @param nodes
 	 *            The list of nodes
@@ -46,23 +41,36 @@ public class AStar<T extends Node<T>> implements GraphAlgorithm<T>{
 	 */
 	@Override
 	public List<T> findPath(List<T> nodes){
-		T start = nodes.get(0);
-		T end = nodes.get(nodes.size() - 1);
+		IndexedMinHeap<T> nodeQueue = new IndexedMinHeap<>();
+		Map<T, T> backtrackMap = new HashMap<>();
+		Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Map<T, Integer> startDistMap = new HashMap<>();
+
+		return Waypoints.join(nodes,
+				(start, end) -> findPath(start, end, nodeQueue, backtrackMap, visited, startDistMap));
+	}
+
+	/**
+	 * Finds the path of one leg, the collections are cleared first.
+	 */
+	private List<T> findPath(T start, T end, IndexedMinHeap<T> nodeQueue, Map<T, T> backtrackMap, Set<T> visited,
+			Map<T, Integer> startDistMap){
+		nodeQueue.clear();
+		backtrackMap.clear();
+		visited.clear();
+		startDistMap.clear();
 
 		backtrackMap.put(start, null);
 		startDistMap.put(start, 0);
-		totalDistMap.put(start, start.getDistance(end));
-		nodeQueue.add(start);
+		nodeQueue.offer(start, start.getDistance(end));
 
 		while(!nodeQueue.isEmpty()){
-			Collections.sort(nodeQueue, (n1, n2) -> totalDistMap.get(n1) - totalDistMap.get(n2));
-			T n = nodeQueue.get(0);
+			T n = nodeQueue.poll();
 
 			if(n == end){
-				return getPath(n);
+				return getPath(n, backtrackMap);
 			}
 
-			nodeQueue.remove(n);
 			visited.add(n);
 
 			for(T link: n.getLinks()){
@@ -70,10 +78,6 @@ public class AStar<T extends Node<T>> implements GraphAlgorithm<T>{
 					continue;
 				}
 
-				if(!nodeQueue.contains(link)){
-					nodeQueue.add(link);
-				}
-
 				int dist = startDistMap.get(n) + n.getDistance(link);
 				if(startDistMap.containsKey(link) && dist >= startDistMap.get(link)){
 					continue;
@@ -81,7 +85,7 @@ public class AStar<T extends Node<T>> implements GraphAlgorithm<T>{
 
 				backtrackMap.put(link, n);
 				startDistMap.put(link, dist);
-				totalDistMap.put(link, dist + link.getDistance(end));
+				nodeQueue.offer(link, (long) dist + link.getDistance(end));
 			}
 
 		}
@@ -89,21 +93,41 @@ public class AStar<T extends Node<T>> implements GraphAlgorithm<T>{
 		return null;
 	}
 
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		// without a heuristic this is the same as Dijkstra
+		return IntPathSearch.forThread().findPath(graph, start, end, graph.getHeuristic());
+	}
+
 	/**
 	 * Returns a List&lt;T&gt; containing all nodes on the path between start and end
 	 * 
 	 * @param n
 	 *            The end node
+	 * @param backtrackMap
+	 *            The predecessor of every reached node
 	 * @return The Path as a List&lt;T&gt;
 	 */
-	private List<T> getPath(T n){
+	private List<T> getPath(T n, Map<T, T> backtrackMap){
 		List<T> path = new ArrayList<>();
 
 		while(n != null){
-			path.add(0, n);
+			path.add(n);
 			n = backtrackMap.get(n);
 		}
 
+		Collections.reverse(path);
 		return path;
 	}
 
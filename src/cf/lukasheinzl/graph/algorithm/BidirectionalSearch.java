@@ -0,0 +1,344 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntBinaryOperator;
+
+import cf.lukasheinzl.graph.CsrGraph;
+import cf.lukasheinzl.graph.Node;
+
+/**
+ * This class is an {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm GraphAlgorithm} implementation of the
+ * bidirectional Dijkstra and A* algorithm. One search starts at the start node and follows the links, the other one
+ * starts at the end node and follows the {@link cf.lukasheinzl.graph.Node#getReverseLinks() reverse links}. The search
+ * with the smaller key goes on, it stops when the two smallest keys together can not beat the shortest path found.<br>
+ * The A* variant uses the average of the forward and backward heuristic as potential, so both searches use the same
+ * keys.
+ * 
+ * @author Lukas Heinzl
+ *
+ * @param <T>
+ *            The Type of Node to use the Algorithm with, must be a sub-class of {@link cf.lukasheinzl.graph.Node}
+ */
+public class BidirectionalSearch<T extends Node<T>> implements GraphAlgorithm<T>{
+
+	// the instances returned by getAlgorithm for "BiDijkstra" and "BiAStar"
+	static final BidirectionalSearch<?>	DIJKSTRA	= new BidirectionalSearch<>(false);
+	static final BidirectionalSearch<?>	ASTAR		= new BidirectionalSearch<>(true);
+
+	// the forward and backward frontier of every thread for CsrGraphs
+	private static final ThreadLocal<IntFrontier[]>	FRONTIERS	= ThreadLocal
+			.withInitial(() -> new IntFrontier[]{new IntFrontier(), new IntFrontier()});
+
+	// if true the searches are directed towards each other with the distance of the nodes
+	private boolean	useHeuristic;
+
+	/**
+	 * Package-private constructor, the shared instances can be obtained from
+	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
+	 * 
+	 * @param useHeuristic
+	 *            True for bidirectional A*, false for bidirectional Dijkstra
+	 */
+	BidirectionalSearch(boolean useHeuristic){
+		this.useHeuristic = useHeuristic;
+	}
+
+	/**
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list)
+	 * 
+	 * @param nodes
+	 *            The list of nodes
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public List<T> findPath(List<T> nodes){
+		Frontier<T> forward = new Frontier<>();
+		Frontier<T> backward = new Frontier<>();
+
+		return Waypoints.join(nodes, (start, end) -> findPath(start, end, forward, backward));
+	}
+
+	/**
+	 * Finds the path of one leg, the frontiers are cleared first.
+	 */
+	private List<T> findPath(T start, T end, Frontier<T> forward, Frontier<T> backward){
+		if(start == end){
+			List<T> path = new ArrayList<>();
+			path.add(start);
+			return path;
+		}
+
+		forward.clear();
+		backward.clear();
+
+		forward.reach(start, null, 0, potential(start, start, end));
+		backward.reach(end, null, 0, -potential(end, start, end));
+
+		// the length of the shortest path found so far and the node where its two halves meet
+		long best = Long.MAX_VALUE;
+		T meet = null;
+
+		while(!forward.nodeQueue.isEmpty() && !backward.nodeQueue.isEmpty()){
+			long forwardKey = forward.nodeQueue.peekKey();
+			long backwardKey = backward.nodeQueue.peekKey();
+
+			if(meet != null && forwardKey + backwardKey >= 2 * best){
+				break;
+			}
+
+			boolean isForward = forwardKey <= backwardKey;
+			Frontier<T> f = isForward ? forward : backward;
+			Frontier<T> other = isForward ? backward : forward;
+
+			T n = f.nodeQueue.poll();
+			f.visited.add(n);
+			int nDist = f.startDistMap.get(n);
+
+			for(T link: isForward ? n.getLinks() : n.getReverseLinks()){
+				if(f.visited.contains(link)){
+					continue;
+				}
+
+				int dist = nDist + (isForward ? n.getDistance(link) : link.getDistance(n));
+				Integer old = f.startDistMap.get(link);
+				if(old != null && dist >= old){
+					continue;
+				}
+
+				long p = potential(link, start, end);
+				f.reach(link, n, dist, isForward ? p : -p);
+
+				Integer otherDist = other.startDistMap.get(link);
+				if(otherDist != null && (long) dist + otherDist < best){
+					best = (long) dist + otherDist;
+					meet = link;
+				}
+			}
+		}
+
+		if(meet == null){
+			return null;
+		}
+
+		List<T> path = new ArrayList<>();
+
+		for(T n = meet; n != null; n = forward.backtrackMap.get(n)){
+			path.add(n);
+		}
+
+		Collections.reverse(path);
+
+		for(T n = backward.backtrackMap.get(meet); n != null; n = backward.backtrackMap.get(n)){
+			path.add(n);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. The
+	 * backward search uses the {@link cf.lukasheinzl.graph.CsrGraph#reverse() reversed graph}, it is created by the
+	 * first search of a graph.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		CsrPaths.checkNodes(graph, start, end);
+
+		if(start == end){
+			return new int[]{start};
+		}
+
+		CsrGraph reversed = graph.reverse();
+		IntBinaryOperator heuristic = useHeuristic ? graph.getHeuristic() : null;
+		IntFrontier[] frontiers = FRONTIERS.get();
+		IntFrontier forward = frontiers[0];
+		IntFrontier backward = frontiers[1];
+
+		forward.prepare(graph.getNodeCount());
+		backward.prepare(graph.getNodeCount());
+
+		forward.reach(start, -1, 0, potential(heuristic, start, start, end));
+		backward.reach(end, -1, 0, -potential(heuristic, end, start, end));
+
+		long best = Long.MAX_VALUE;
+		int meet = -1;
+
+		while(!forward.nodeQueue.isEmpty() && !backward.nodeQueue.isEmpty()){
+			long forwardKey = forward.nodeQueue.peekKey();
+			long backwardKey = backward.nodeQueue.peekKey();
+
+			if(meet != -1 && forwardKey + backwardKey >= 2 * best){
+				break;
+			}
+
+			boolean isForward = forwardKey <= backwardKey;
+			IntFrontier f = isForward ? forward : backward;
+			IntFrontier other = isForward ? backward : forward;
+			CsrGraph g = isForward ? graph : reversed;
+
+			int n = f.nodeQueue.poll();
+			f.settled[n] = f.generation;
+
+			for(int e = g.getEdgeStart(n), last = g.getEdgeEnd(n); e < last; e++){
+				int link = g.getTarget(e);
+				if(f.settled[link] == f.generation){
+					continue;
+				}
+
+				int dist = f.dist[n] + g.getWeight(e);
+				if(f.reached[link] == f.generation && dist >= f.dist[link]){
+					continue;
+				}
+
+				long p = potential(heuristic, link, start, end);
+				f.reach(link, n, dist, isForward ? p : -p);
+
+				if(other.reached[link] == other.generation && (long) dist + other.dist[link] < best){
+					best = (long) dist + other.dist[link];
+					meet = link;
+				}
+			}
+		}
+
+		forward.nodeQueue.clear();
+		backward.nodeQueue.clear();
+
+		if(meet == -1){
+			return null;
+		}
+
+		int[] head = CsrPaths.getPath(forward.prev, meet);
+
+		int length = head.length;
+		for(int n = backward.prev[meet]; n != -1; n = backward.prev[n]){
+			length++;
+		}
+
+		int[] path = Arrays.copyOf(head, length);
+		int i = head.length;
+		for(int n = backward.prev[meet]; n != -1; n = backward.prev[n]){
+			path[i++] = n;
+		}
+
+		return path;
+	}
+
+	/**
+	 * Returns twice the potential of the forward search at the given node, the potential of the backward search is the
+	 * negative value. It is 0 for bidirectional Dijkstra.
+	 */
+	private long potential(T n, T start, T end){
+		return useHeuristic ? (long) n.getDistance(end) - start.getDistance(n) : 0;
+	}
+
+	private static long potential(IntBinaryOperator heuristic, int n, int start, int end){
+		return heuristic == null ? 0 : (long) heuristic.applyAsInt(n, end) - heuristic.applyAsInt(start, n);
+	}
+
+	/**
+	 * The state of one direction of a search of an object graph.
+	 */
+	private static final class Frontier<T>{
+
+		private IndexedMinHeap<T>	nodeQueue;
+
+		// the predecessor of every node in the forward search, its successor in the backward search
+		private Map<T, T>			backtrackMap;
+		private Set<T>				visited;
+		private Map<T, Integer>		startDistMap;
+
+		private Frontier(){
+			nodeQueue = new IndexedMinHeap<>();
+			backtrackMap = new HashMap<>();
+			visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			startDistMap = new HashMap<>();
+		}
+
+		private void clear(){
+			nodeQueue.clear();
+			backtrackMap.clear();
+			visited.clear();
+			startDistMap.clear();
+		}
+
+		/**
+		 * Sets the distance of the node, the key is the doubled distance plus the potential.
+		 */
+		private void reach(T n, T prev, int dist, long potential){
+			if(prev != null){
+				backtrackMap.put(n, prev);
+			}
+
+			startDistMap.put(n, dist);
+			nodeQueue.offer(n, 2L * dist + potential);
+		}
+
+	}
+
+	/**
+	 * The state of one direction of a search of a CsrGraph. Like
+	 * {@link cf.lukasheinzl.graph.algorithm.IntPathSearch IntPathSearch} it only uses the entries of nodes stamped
+	 * with the current generation, so the arrays are reused without clearing them.
+	 */
+	private static final class IntFrontier{
+
+		private IntMinHeap	nodeQueue;
+		private int[]		dist;
+		private int[]		prev;
+		private int[]		reached;
+		private int[]		settled;
+		private int			generation;
+
+		private IntFrontier(){
+			nodeQueue = new IntMinHeap(0);
+			dist = new int[0];
+			prev = new int[0];
+			reached = new int[0];
+			settled = new int[0];
+		}
+
+		private void prepare(int count){
+			if(count > dist.length){
+				nodeQueue = new IntMinHeap(count);
+				dist = new int[count];
+				prev = new int[count];
+				reached = new int[count];
+				settled = new int[count];
+				generation = 0;
+			}
+
+			nodeQueue.clear();
+
+			if(++generation == Integer.MAX_VALUE){
+				Arrays.fill(reached, 0);
+				Arrays.fill(settled, 0);
+				generation = 1;
+			}
+		}
+
+		private void reach(int n, int prev, int dist, long potential){
+			reached[n] = generation;
+			this.dist[n] = dist;
+			this.prev[n] = prev;
+			nodeQueue.offer(n, 2L * dist + potential);
+		}
+
+	}
+
+}
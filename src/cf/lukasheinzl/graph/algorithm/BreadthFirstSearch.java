@@ -1,10 +1,17 @@
 package cf.lukasheinzl.graph.algorithm;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import cf.lukasheinzl.graph.CsrGraph;
 import cf.lukasheinzl.graph.Node;
 
 /**
@@ -18,22 +25,18 @@ import cf.lukasheinzl.graph.Node;
  */
 public class BreadthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 
-	private List<T>		nodeQueue;
-	private Map<T, T>	backtrackMap;
-	private List<T>		visited;
+	static final BreadthFirstSearch<?> INSTANCE = new BreadthFirstSearch<>();
 
 	/**
-	 * Package-private constructor to initialize instance variables. Can only be called from
+	 * Package-private constructor, the shared instance can be obtained from
 	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
 	 */
 	BreadthFirstSearch(){
-		nodeQueue = new ArrayList<>();
-		backtrackMap = new HashMap<>();
-		visited = new ArrayList<>();
 	}
 
 	/**
-	 * Finds the path from the start node (first element) to the end node (last element in list)
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list)
 	 * 
 	 * @param nodes
 	 *            The list of nodes
@@ -41,28 +44,36 @@ public class BreadthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 	 */
 	@Override
 	public List<T> findPath(List<T> nodes){
-		T start = nodes.get(0);
-		T end = nodes.get(nodes.size() - 1);
+		Deque<T> nodeQueue = new ArrayDeque<>();
+		Map<T, T> backtrackMap = new HashMap<>();
+
+		// contains all nodes that were added to the queue, so no node is added twice
+		Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		return Waypoints.join(nodes, (start, end) -> findPath(start, end, nodeQueue, backtrackMap, visited));
+	}
+
+	/**
+	 * Finds the path of one leg, the collections are cleared first.
+	 */
+	private List<T> findPath(T start, T end, Deque<T> nodeQueue, Map<T, T> backtrackMap, Set<T> visited){
+		nodeQueue.clear();
+		backtrackMap.clear();
+		visited.clear();
 
 		nodeQueue.add(start);
 		backtrackMap.put(start, null);
+		visited.add(start);
 
 		while(!nodeQueue.isEmpty()){
-			T n = nodeQueue.get(0);
+			T n = nodeQueue.poll();
 
 			if(n == end){
-				return getPath(n);
+				return getPath(n, backtrackMap);
 			}
 
-			nodeQueue.remove(n);
-			visited.add(n);
-
 			for(T link: n.getLinks()){
-				if(visited.contains(link)){
-					continue;
-				}
-
-				if(!nodeQueue.contains(link)){
+				if(visited.add(link)){
 					nodeQueue.add(link);
 					backtrackMap.put(link, n);
 				}
@@ -72,21 +83,74 @@ public class BreadthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 		return null;
 	}
 
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		CsrPaths.checkNodes(graph, start, end);
+		int count = graph.getNodeCount();
+
+		// contains all nodes that were added to the queue, so no node is added twice
+		BitSet visited = new BitSet(count);
+		int[] prev = new int[count];
+
+		// every node is added at most once
+		int[] nodeQueue = new int[count];
+		int head = 0;
+		int tail = 0;
+
+		nodeQueue[tail++] = start;
+		prev[start] = -1;
+		visited.set(start);
+
+		while(head < tail){
+			int n = nodeQueue[head++];
+
+			if(n == end){
+				return CsrPaths.getPath(prev, n);
+			}
+
+			for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+				int link = graph.getTarget(e);
+
+				if(!visited.get(link)){
+					visited.set(link);
+					nodeQueue[tail++] = link;
+					prev[link] = n;
+				}
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Returns a List&lt;T&gt; containing all nodes on the path between start and end
 	 * 
 	 * @param n
 	 *            The end node
+	 * @param backtrackMap
+	 *            The predecessor of every reached node
 	 * @return The Path as a List&lt;T&gt;
 	 */
-	private List<T> getPath(T n){
+	private List<T> getPath(T n, Map<T, T> backtrackMap){
 		List<T> path = new ArrayList<>();
 
 		while(n != null){
-			path.add(0, n);
+			path.add(n);
 			n = backtrackMap.get(n);
 		}
 
+		Collections.reverse(path);
 		return path;
 	}
 }
@@ -0,0 +1,757 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import cf.lukasheinzl.graph.CsrGraph;
+
+/**
+ * A contraction hierarchy of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} for fast shortest path queries on a
+ * graph that does not change.<br>
+ * {@link #build(CsrGraph)} contracts the nodes one after another, the less important nodes first. When a node is
+ * contracted a shortcut edge is added between every pair of its neighbours whose shortest path leads through it, the
+ * order of contraction is the rank of a node. A query searches from both ends, but only follows edges to nodes of a
+ * higher rank, so it only visits a few hundred nodes even on big graphs. The shortcuts of the path are unpacked into the
+ * original edges afterwards.<br>
+ * Building a hierarchy takes long, {@link #write(Path)} and {@link #read(Path)} store it in a file. A hierarchy can be
+ * used by multiple threads at once.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class ContractionHierarchy{
+
+	// the first int of a file, "CH" and the version of the format
+	private static final int	MAGIC				= 0x43480001;
+
+	// the number of nodes a witness search settles before it gives up and the shortcut is added, the priority of a node
+	// is estimated with a smaller limit
+	private static final int	WITNESS_LIMIT		= 500;
+	private static final int	SIMULATION_LIMIT	= 50;
+
+	private int[]				ranks;
+
+	// the edges to nodes of a higher rank, followed by the forward search
+	private Edges				up;
+
+	// the reversed edges from nodes of a higher rank, followed by the backward search
+	private Edges				down;
+
+	// the state of the queries of every thread
+	private ThreadLocal<Query>	queries;
+
+	private ContractionHierarchy(int[] ranks, Edges up, Edges down){
+		this.ranks = ranks;
+		this.up = up;
+		this.down = down;
+		this.queries = ThreadLocal.withInitial(() -> new Query(ranks.length));
+	}
+
+	/**
+	 * Builds the contraction hierarchy of the given graph. The weights of the graph are used as distances, the nodes
+	 * keep their ids.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @return The hierarchy
+	 */
+	public static ContractionHierarchy build(CsrGraph graph){
+		return new Contraction(graph).contractAll();
+	}
+
+	/**
+	 * Reads a hierarchy written by {@link #write(Path)}.
+	 * 
+	 * @param file
+	 *            The path to the file
+	 * @return The hierarchy
+	 * @throws IOException
+	 *             If the file could not be read or does not contain a hierarchy
+	 */
+	public static ContractionHierarchy read(Path file) throws IOException{
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+			if(in.readInt() != MAGIC){
+				throw new IOException("The file does not contain a contraction hierarchy: " + file);
+			}
+
+			int[] ranks = readArray(in);
+			Edges up = Edges.read(in);
+			Edges down = Edges.read(in);
+
+			if(up.offsets.length != ranks.length + 1 || down.offsets.length != ranks.length + 1){
+				throw new IOException("The contraction hierarchy is damaged: " + file);
+			}
+
+			return new ContractionHierarchy(ranks, up, down);
+		}
+	}
+
+	/**
+	 * Writes this hierarchy to a file, it can be read again with {@link #read(Path)}.
+	 * 
+	 * @param file
+	 *            The path to where to store the hierarchy
+	 * @throws IOException
+	 *             If the file could not be created or written
+	 */
+	public void write(Path file) throws IOException{
+		try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))){
+			out.writeInt(MAGIC);
+			writeArray(out, ranks);
+			up.write(out);
+			down.write(out);
+		}
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 * 
+	 * @return The number of nodes
+	 */
+	public int getNodeCount(){
+		return ranks.length;
+	}
+
+	/**
+	 * Returns the number of edges, including the shortcuts.
+	 * 
+	 * @return The number of edges
+	 */
+	public int getEdgeCount(){
+		return up.targets.length + down.targets.length;
+	}
+
+	/**
+	 * Returns the rank of a node, the nodes with a lower rank were contracted first.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The rank
+	 */
+	public int getRank(int node){
+		return ranks[node];
+	}
+
+	/**
+	 * Returns the length of the shortest path from the start node to the end node.
+	 * 
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The length or {@link java.lang.Integer#MAX_VALUE} if there is no path
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end node does not exist
+	 */
+	public int getDistance(int start, int end){
+		Query q = queries.get();
+		return search(q, start, end) == -1 ? Integer.MAX_VALUE : (int) q.best;
+	}
+
+	/**
+	 * Finds the shortest path from the start node to the end node.
+	 * 
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if there is no path
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end node does not exist
+	 */
+	public int[] findPath(int start, int end){
+		Query q = queries.get();
+		int meet = search(q, start, end);
+
+		if(meet == -1){
+			return null;
+		}
+
+		// the edges of the forward search from the meeting node back to the start node
+		IntList edges = new IntList();
+		for(int n = meet; q.forward.prevNode[n] != -1; n = q.forward.prevNode[n]){
+			edges.add(q.forward.prevEdge[n]);
+		}
+
+		IntList path = new IntList();
+		IntList stack = new IntList();
+		path.add(start);
+
+		int n = start;
+		for(int i = edges.size() - 1; i >= 0; i--){
+			int e = edges.get(i);
+			unpack(n, up.targets[e], up.middles[e], path, stack);
+			n = up.targets[e];
+		}
+
+		for(int m = meet; q.backward.prevNode[m] != -1; m = q.backward.prevNode[m]){
+			int e = q.backward.prevEdge[m];
+			unpack(m, q.backward.prevNode[m], down.middles[e], path, stack);
+		}
+
+		return path.toArray();
+	}
+
+	/**
+	 * Searches upwards from both ends and returns the node where the two halves of the shortest path meet.
+	 * 
+	 * @return The meeting node or -1 if there is no path
+	 */
+	private int search(Query q, int start, int end){
+		if(start < 0 || start >= ranks.length || end < 0 || end >= ranks.length){
+			throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Node count: " + ranks.length);
+		}
+
+		q.prepare();
+		Search forward = q.forward;
+		Search backward = q.backward;
+
+		forward.reach(start, -1, -1, 0, q.generation);
+		backward.reach(end, -1, -1, 0, q.generation);
+
+		q.best = start == end ? 0 : Long.MAX_VALUE;
+		int meet = start == end ? start : -1;
+
+		while(true){
+			// a search can stop once its smallest key is not shorter than the best path
+			boolean forwardOpen = !forward.nodeQueue.isEmpty() && forward.nodeQueue.peekKey() < q.best;
+			boolean backwardOpen = !backward.nodeQueue.isEmpty() && backward.nodeQueue.peekKey() < q.best;
+
+			if(!forwardOpen && !backwardOpen){
+				break;
+			}
+
+			boolean isForward = forwardOpen
+					&& (!backwardOpen || forward.nodeQueue.peekKey() <= backward.nodeQueue.peekKey());
+			Search s = isForward ? forward : backward;
+			Search other = isForward ? backward : forward;
+			Edges edges = isForward ? up : down;
+			Edges reverse = isForward ? down : up;
+
+			int n = s.nodeQueue.poll();
+			int nDist = s.dist[n];
+
+			if(isStalled(s, reverse, n, q.generation)){
+				continue;
+			}
+
+			for(int e = edges.offsets[n], last = edges.offsets[n + 1]; e < last; e++){
+				int link = edges.targets[e];
+				int dist = nDist + edges.weights[e];
+
+				if(s.reached[link] == q.generation && dist >= s.dist[link]){
+					continue;
+				}
+
+				s.reach(link, n, e, dist, q.generation);
+
+				if(other.reached[link] == q.generation && (long) dist + other.dist[link] < q.best){
+					q.best = (long) dist + other.dist[link];
+					meet = link;
+				}
+			}
+		}
+
+		return meet;
+	}
+
+	/**
+	 * Checks if a node of a higher rank has a shorter path to the node than the search found. Its edges do not have to
+	 * be followed then, the shortest paths through it go through the other node (stall-on-demand).
+	 */
+	private boolean isStalled(Search s, Edges reverse, int n, int generation){
+		for(int e = reverse.offsets[n], last = reverse.offsets[n + 1]; e < last; e++){
+			int other = reverse.targets[e];
+
+			if(s.reached[other] == generation && (long) s.dist[other] + reverse.weights[e] < s.dist[n]){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Appends the nodes of the edge from a to b to the path, without a. Shortcuts are replaced by the two edges they
+	 * were made of until only original edges are left.
+	 */
+	private void unpack(int a, int b, int middle, IntList path, IntList stack){
+		stack.clear();
+		stack.add(a);
+		stack.add(b);
+		stack.add(middle);
+
+		while(!stack.isEmpty()){
+			int m = stack.removeLast();
+			int to = stack.removeLast();
+			int from = stack.removeLast();
+
+			if(m == -1){
+				path.add(to);
+				continue;
+			}
+
+			// the edge from-m is a reversed edge of m, the edge m-to an upward edge of m, the second half is pushed first
+			stack.add(m);
+			stack.add(to);
+			stack.add(up.middles[up.find(m, to)]);
+			stack.add(from);
+			stack.add(m);
+			stack.add(down.middles[down.find(m, from)]);
+		}
+	}
+
+	private static int[] readArray(DataInputStream in) throws IOException{
+		int length = in.readInt();
+
+		if(length < 0){
+			throw new IOException("Negative array length: " + length);
+		}
+
+		int[] array = new int[length];
+		for(int i = 0; i < length; i++){
+			array[i] = in.readInt();
+		}
+
+		return array;
+	}
+
+	private static void writeArray(DataOutputStream out, int[] array) throws IOException{
+		out.writeInt(array.length);
+
+		for(int value: array){
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * The edges of one direction in compressed sparse row format. The middle of an edge is the node a shortcut leads
+	 * through or -1 for an original edge.
+	 */
+	private static final class Edges{
+
+		private int[]	offsets;
+		private int[]	targets;
+		private int[]	weights;
+		private int[]	middles;
+
+		private Edges(int[] offsets, int[] targets, int[] weights, int[] middles){
+			this.offsets = offsets;
+			this.targets = targets;
+			this.weights = weights;
+			this.middles = middles;
+		}
+
+		private static Edges read(DataInputStream in) throws IOException{
+			int[] offsets = readArray(in);
+			int[] targets = readArray(in);
+			int[] weights = readArray(in);
+			int[] middles = readArray(in);
+
+			if(offsets.length == 0 || offsets[offsets.length - 1] != targets.length || weights.length != targets.length
+					|| middles.length != targets.length){
+				throw new IOException("The contraction hierarchy is damaged");
+			}
+
+			return new Edges(offsets, targets, weights, middles);
+		}
+
+		private void write(DataOutputStream out) throws IOException{
+			writeArray(out, offsets);
+			writeArray(out, targets);
+			writeArray(out, weights);
+			writeArray(out, middles);
+		}
+
+		/**
+		 * Returns the index of the edge of the node to the target, the hierarchy has at most one.
+		 */
+		private int find(int node, int target){
+			for(int e = offsets[node]; e < offsets[node + 1]; e++){
+				if(targets[e] == target){
+					return e;
+				}
+			}
+
+			throw new IllegalStateException("Missing edge " + node + " - " + target);
+		}
+
+	}
+
+	/**
+	 * The state of one direction of a query, the entries of a node are only valid if it was reached in the current
+	 * generation.
+	 */
+	private static final class Search{
+
+		private IntMinHeap	nodeQueue;
+		private int[]		dist;
+		private int[]		prevNode;
+		private int[]		prevEdge;
+		private int[]		reached;
+
+		private Search(int count){
+			nodeQueue = new IntMinHeap(count);
+			dist = new int[count];
+			prevNode = new int[count];
+			prevEdge = new int[count];
+			reached = new int[count];
+		}
+
+		private void reach(int n, int prev, int edge, int dist, int generation){
+			reached[n] = generation;
+			this.dist[n] = dist;
+			prevNode[n] = prev;
+			prevEdge[n] = edge;
+			nodeQueue.offer(n, dist);
+		}
+
+	}
+
+	/**
+	 * The state of the queries of one thread.
+	 */
+	private static final class Query{
+
+		private Search	forward;
+		private Search	backward;
+		private int		generation;
+
+		// the length of the shortest path found by the last query
+		private long	best;
+
+		private Query(int count){
+			forward = new Search(count);
+			backward = new Search(count);
+		}
+
+		private void prepare(){
+			forward.nodeQueue.clear();
+			backward.nodeQueue.clear();
+
+			if(++generation == Integer.MAX_VALUE){
+				Arrays.fill(forward.reached, 0);
+				Arrays.fill(backward.reached, 0);
+				generation = 1;
+			}
+		}
+
+	}
+
+	/**
+	 * Contracts the nodes of a graph. The edges between the nodes that are not contracted yet are kept in growable
+	 * arrays of (target, weight, middle) triples, both the outgoing and the incoming ones. When a node is contracted its
+	 * edges do not change anymore, they are moved to the edges of the hierarchy.
+	 */
+	private static final class Contraction{
+
+		private int			count;
+		private int[][]		out;
+		private int[]		outSize;
+		private int[][]		in;
+		private int[]		inSize;
+
+		// the final edges of the contracted nodes, the upward ones and the reversed ones from nodes of a higher rank
+		private int[][]		upEdges;
+		private int[][]		downEdges;
+
+		// the number of contracted neighbours of every node, nodes in already contracted areas are contracted later
+		private int[]		contractedNeighbours;
+
+		// the node whose neighbours were last updated, so a node that is both a source and a target is updated once
+		private int[]		updatedBy;
+
+		// the state of the witness searches
+		private IntMinHeap	witnessQueue;
+		private int[]		witnessDist;
+		private int[]		witnessReached;
+		private int			generation;
+
+		// the out-neighbours of the node that is contracted are stamped with the target generation
+		private int[]		targetStamps;
+		private int			targetGeneration;
+
+		private Contraction(CsrGraph graph){
+			count = graph.getNodeCount();
+			out = new int[count][];
+			outSize = new int[count];
+			in = new int[count][];
+			inSize = new int[count];
+			upEdges = new int[count][];
+			downEdges = new int[count][];
+			contractedNeighbours = new int[count];
+			updatedBy = new int[count];
+			witnessQueue = new IntMinHeap(count);
+			witnessDist = new int[count];
+			witnessReached = new int[count];
+			targetStamps = new int[count];
+
+			Arrays.fill(updatedBy, -1);
+
+			for(int n = 0; n < count; n++){
+				out[n] = new int[3 * Math.max(graph.getDegree(n), 1)];
+				in[n] = new int[3];
+			}
+
+			for(int n = 0; n < count; n++){
+				for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+					addEdge(n, graph.getTarget(e), graph.getWeight(e), -1);
+				}
+			}
+		}
+
+		private ContractionHierarchy contractAll(){
+			IntMinHeap queue = new IntMinHeap(count);
+			for(int n = 0; n < count; n++){
+				queue.offer(n, priority(n));
+			}
+
+			int[] ranks = new int[count];
+			int rank = 0;
+
+			while(!queue.isEmpty()){
+				int n = queue.poll();
+
+				// the priority may be outdated, the node is only contracted if it is still the least important one
+				long p = priority(n);
+				if(!queue.isEmpty() && p > queue.peekKey()){
+					queue.offer(n, p);
+					continue;
+				}
+
+				contract(n, false);
+				ranks[n] = rank++;
+
+				upEdges[n] = Arrays.copyOf(out[n], 3 * outSize[n]);
+				downEdges[n] = Arrays.copyOf(in[n], 3 * inSize[n]);
+				out[n] = null;
+				in[n] = null;
+				outSize[n] = 0;
+				inSize[n] = 0;
+
+				for(int i = 0; i < upEdges[n].length; i += 3){
+					int to = upEdges[n][i];
+					inSize[to] = remove(in[to], inSize[to], n);
+				}
+
+				for(int i = 0; i < downEdges[n].length; i += 3){
+					int from = downEdges[n][i];
+					outSize[from] = remove(out[from], outSize[from], n);
+				}
+
+				// the priorities of the neighbours are only updated when they are polled
+				for(int i = 0; i < upEdges[n].length; i += 3){
+					updateNeighbour(upEdges[n][i], n);
+				}
+
+				for(int i = 0; i < downEdges[n].length; i += 3){
+					updateNeighbour(downEdges[n][i], n);
+				}
+			}
+
+			return new ContractionHierarchy(ranks, collect(upEdges), collect(downEdges));
+		}
+
+		private void updateNeighbour(int n, int contracted){
+			if(updatedBy[n] != contracted){
+				updatedBy[n] = contracted;
+				contractedNeighbours[n]++;
+			}
+		}
+
+		/**
+		 * Twice the number of shortcuts minus the number of removed edges, plus the number of contracted neighbours.
+		 */
+		private long priority(int n){
+			return 2L * (contract(n, true) - outSize[n] - inSize[n]) + contractedNeighbours[n];
+		}
+
+		/**
+		 * Adds the shortcuts needed to contract the node, or only counts them if simulate is true.
+		 */
+		private int contract(int n, boolean simulate){
+			int shortcuts = 0;
+
+			// the witness searches can stop when all targets are settled
+			targetGeneration++;
+			for(int j = 0; j < outSize[n]; j++){
+				targetStamps[out[n][3 * j]] = targetGeneration;
+			}
+
+			for(int i = 0; i < inSize[n]; i++){
+				int from = in[n][3 * i];
+				int fromWeight = in[n][3 * i + 1];
+
+				int maxWeight = -1;
+				for(int j = 0; j < outSize[n]; j++){
+					if(out[n][3 * j] != from){
+						maxWeight = Math.max(maxWeight, out[n][3 * j + 1]);
+					}
+				}
+
+				if(maxWeight == -1){
+					continue;
+				}
+
+				witnessSearch(from, n, (long) fromWeight + maxWeight, outSize[n],
+						simulate ? SIMULATION_LIMIT : WITNESS_LIMIT);
+
+				for(int j = 0; j < outSize[n]; j++){
+					int to = out[n][3 * j];
+					if(to == from){
+						continue;
+					}
+
+					int dist = fromWeight + out[n][3 * j + 1];
+					if(witnessReached[to] == generation && witnessDist[to] <= dist){
+						continue;
+					}
+
+					shortcuts++;
+
+					if(!simulate){
+						addEdge(from, to, dist, n);
+					}
+				}
+			}
+
+			return shortcuts;
+		}
+
+		/**
+		 * Searches the shortest paths from the source that do not lead through the excluded node, until all targets are
+		 * settled, the distance is reached or the limit of settled nodes.
+		 */
+		private void witnessSearch(int source, int excluded, long maxDist, int targets, int limit){
+			witnessQueue.clear();
+
+			if(++generation == Integer.MAX_VALUE){
+				Arrays.fill(witnessReached, 0);
+				generation = 1;
+			}
+
+			witnessReached[source] = generation;
+			witnessDist[source] = 0;
+			witnessQueue.offer(source, 0);
+
+			for(int settled = 0; settled < limit && targets > 0 && !witnessQueue.isEmpty(); settled++){
+				if(witnessQueue.peekKey() > maxDist){
+					break;
+				}
+
+				int n = witnessQueue.poll();
+
+				if(targetStamps[n] == targetGeneration){
+					targets--;
+				}
+
+				for(int i = 0; i < outSize[n]; i++){
+					int link = out[n][3 * i];
+					if(link == excluded){
+						continue;
+					}
+
+					int dist = witnessDist[n] + out[n][3 * i + 1];
+					if(witnessReached[link] == generation && dist >= witnessDist[link]){
+						continue;
+					}
+
+					witnessReached[link] = generation;
+					witnessDist[link] = dist;
+					witnessQueue.offer(link, dist);
+				}
+			}
+		}
+
+		/**
+		 * Adds the edge or lowers the weight of the existing edge between the nodes.
+		 */
+		private void addEdge(int from, int to, int weight, int middle){
+			if(from == to){
+				return;
+			}
+
+			for(int i = 0; i < outSize[from]; i++){
+				if(out[from][3 * i] != to){
+					continue;
+				}
+
+				if(weight < out[from][3 * i + 1]){
+					out[from][3 * i + 1] = weight;
+					out[from][3 * i + 2] = middle;
+
+					for(int j = 0; j < inSize[to]; j++){
+						if(in[to][3 * j] == from){
+							in[to][3 * j + 1] = weight;
+							in[to][3 * j + 2] = middle;
+						}
+					}
+				}
+
+				return;
+			}
+
+			out[from] = append(out[from], outSize[from]++, to, weight, middle);
+			in[to] = append(in[to], inSize[to]++, from, weight, middle);
+		}
+
+		private int[] append(int[] edges, int index, int target, int weight, int middle){
+			if(3 * index == edges.length){
+				edges = Arrays.copyOf(edges, edges.length * 2);
+			}
+
+			edges[3 * index] = target;
+			edges[3 * index + 1] = weight;
+			edges[3 * index + 2] = middle;
+			return edges;
+		}
+
+		/**
+		 * Removes the edge to the target by moving the last edge to its place and returns the new size.
+		 */
+		private int remove(int[] edges, int size, int target){
+			for(int i = 0; i < size; i++){
+				if(edges[3 * i] == target){
+					size--;
+					System.arraycopy(edges, 3 * size, edges, 3 * i, 3);
+					return size;
+				}
+			}
+
+			return size;
+		}
+
+		/**
+		 * Converts the edges of all nodes into compressed sparse row format.
+		 */
+		private Edges collect(int[][] edges){
+			int[] offsets = new int[count + 1];
+
+			for(int n = 0; n < count; n++){
+				offsets[n + 1] = offsets[n] + edges[n].length / 3;
+			}
+
+			int[] targets = new int[offsets[count]];
+			int[] weights = new int[offsets[count]];
+			int[] middles = new int[offsets[count]];
+
+			for(int n = 0; n < count; n++){
+				for(int i = 0, e = offsets[n]; i < edges[n].length; i += 3, e++){
+					targets[e] = edges[n][i];
+					weights[e] = edges[n][i + 1];
+					middles[e] = edges[n][i + 2];
+				}
+			}
+
+			return new Edges(offsets, targets, weights, middles);
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import cf.lukasheinzl.graph.CsrGraph;
+import cf.lukasheinzl.graph.Node;
+
+/**
+ * This class is an {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm GraphAlgorithm} that answers queries with a
+ * {@link cf.lukasheinzl.graph.algorithm.ContractionHierarchy ContractionHierarchy}. The hierarchy of a graph is built by
+ * the first query and kept as long as the graph is in use, so the graph must not change (a CsrGraph can not).<br>
+ * Object graphs can change, so no hierarchy is kept for them. A graph of nodes that is queried often can be converted
+ * with {@link cf.lukasheinzl.graph.CsrGraph#fromNodes(List) CsrGraph.fromNodes}, the hierarchy is kept as long as the
+ * caller keeps the converted graph.
+ * 
+ * @author Lukas Heinzl
+ *
+ * @param <T>
+ *            The Type of Node to use the Algorithm with, must be a sub-class of {@link cf.lukasheinzl.graph.Node}
+ */
+public class ContractionHierarchySearch<T extends Node<T>> implements GraphAlgorithm<T>{
+
+	// the instance returned by getAlgorithm for "CH"
+	static final ContractionHierarchySearch<?>	INSTANCE	= new ContractionHierarchySearch<>();
+
+	// the hierarchies of the graphs, a hierarchy is removed when its graph is no longer used
+	private static final Map<CsrGraph, ContractionHierarchy>	HIERARCHIES	= Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Package-private constructor, the shared instance can be obtained from
+	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
+	 */
+	ContractionHierarchySearch(){
+	}
+
+	/**
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list). Building a hierarchy takes longer than a search, and the hierarchy of an object
+	 * graph could not be kept because the graph can change, so object graphs are searched by the
+	 * {@link cf.lukasheinzl.graph.algorithm.BidirectionalSearch BidirectionalSearch} that searches like
+	 * {@link cf.lukasheinzl.graph.algorithm.Dijkstra Dijkstra}.
+	 * 
+	 * @param nodes
+	 *            The list of nodes
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<T> findPath(List<T> nodes){
+		return ((GraphAlgorithm<T>) BidirectionalSearch.DIJKSTRA).findPath(nodes);
+	}
+
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. The
+	 * first query of a graph builds its hierarchy, which can take long for big graphs.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		CsrPaths.checkNodes(graph, start, end);
+		return getHierarchy(graph).findPath(start, end);
+	}
+
+	/**
+	 * Returns the hierarchy of the given graph, it is built if the graph has none yet. The map is not locked while the
+	 * hierarchy is built, so queries of other graphs are not blocked. If two threads build the hierarchy of the same
+	 * graph at once, both get the one that was stored first.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @return The hierarchy
+	 */
+	public static ContractionHierarchy getHierarchy(CsrGraph graph){
+		ContractionHierarchy hierarchy = HIERARCHIES.get(graph);
+
+		if(hierarchy == null){
+			hierarchy = ContractionHierarchy.build(graph);
+			ContractionHierarchy stored = HIERARCHIES.putIfAbsent(graph, hierarchy);
+
+			if(stored != null){
+				hierarchy = stored;
+			}
+		}
+
+		return hierarchy;
+	}
+
+	/**
+	 * Sets the hierarchy of the given graph, e.g. one that was {@link ContractionHierarchy#read(java.nio.file.Path)
+	 * read} from a file.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param hierarchy
+	 *            The hierarchy of the graph
+	 * @throws IllegalArgumentException
+	 *             If the hierarchy has a different number of nodes
+	 */
+	public static void setHierarchy(CsrGraph graph, ContractionHierarchy hierarchy){
+		if(graph.getNodeCount() != hierarchy.getNodeCount()){
+			throw new IllegalArgumentException("The hierarchy has " + hierarchy.getNodeCount() + " nodes, the graph "
+					+ graph.getNodeCount());
+		}
+
+		HIERARCHIES.put(graph, hierarchy);
+	}
+
+}
@@ -0,0 +1,65 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import cf.lukasheinzl.graph.CsrGraph;
+
+/**
+ * This class contains the methods the algorithms share when they search a {@link cf.lukasheinzl.graph.CsrGraph
+ * CsrGraph}.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+final class CsrPaths{
+
+	// no one should instantiate this class
+	private CsrPaths(){
+	}
+
+	/**
+	 * Checks if the start and end node exist in the graph.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @throws IndexOutOfBoundsException
+	 *             If a node does not exist
+	 */
+	static void checkNodes(CsrGraph graph, int start, int end){
+		int count = graph.getNodeCount();
+
+		if(start < 0 || start >= count){
+			throw new IndexOutOfBoundsException("Start: " + start + ", Node count: " + count);
+		}
+
+		if(end < 0 || end >= count){
+			throw new IndexOutOfBoundsException("End: " + end + ", Node count: " + count);
+		}
+	}
+
+	/**
+	 * Returns the ids of the nodes on the path from the start to the given end node.
+	 * 
+	 * @param prev
+	 *            The predecessor of every reached node, -1 for the start node
+	 * @param end
+	 *            The end node
+	 * @return The path in order
+	 */
+	static int[] getPath(int[] prev, int end){
+		int length = 0;
+		for(int n = end; n != -1; n = prev[n]){
+			length++;
+		}
+
+		int[] path = new int[length];
+		for(int n = end; n != -1; n = prev[n]){
+			path[--length] = n;
+		}
+
+		return path;
+	}
+
+}
@@ -1,16 +1,25 @@
 package cf.lukasheinzl.graph.algorithm;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
+import java.util.Set;
+import java.util.function.IntConsumer;
 
+import cf.lukasheinzl.graph.CsrGraph;
 import cf.lukasheinzl.graph.Node;
 
 /**
  * This class is an {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm GraphAlgorithm} implementation of the Depth
- * First Search algorithm
+ * First Search algorithm. {@link #traverse(CsrGraph, int, IntConsumer, IntConsumer)},
+ * {@link #traverseAll(CsrGraph, IntConsumer, IntConsumer)} and {@link #topologicalSort(CsrGraph)} visit the nodes of a
+ * {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} in depth first order and can be called without an instance.
  * 
  * @author Lukas Heinzl
  *
@@ -19,22 +28,18 @@ import cf.lukasheinzl.graph.Node;
  */
 public class DepthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 
-	private Stack<T>	nodeStack;
-	private Map<T, T>	backtrackMap;
-	private List<T>		visited;
+	static final DepthFirstSearch<?> INSTANCE = new DepthFirstSearch<>();
 
 	/**
-	 * Package-private constructor to initialize instance variables. Can only be called from
+	 * Package-private constructor, the shared instance can be obtained from
 	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
 	 */
 	DepthFirstSearch(){
-		nodeStack = new Stack<>();
-		backtrackMap = new HashMap<>();
-		visited = new ArrayList<>();
 	}
 
 	/**
-	 * Finds the path from the start node (first element) to the end node (last element in list)
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list)
 	 * 
 	 * @param nodes
 	 *            The list of nodes
@@ -42,27 +47,36 @@ public class DepthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 	 */
 	@Override
 	public List<T> findPath(List<T> nodes){
-		T start = nodes.get(0);
-		T end = nodes.get(nodes.size() - 1);
+		Deque<T> nodeStack = new ArrayDeque<>();
+		Map<T, T> backtrackMap = new HashMap<>();
+
+		// contains all nodes that were pushed onto the stack, so no node is pushed twice
+		Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		return Waypoints.join(nodes, (start, end) -> findPath(start, end, nodeStack, backtrackMap, visited));
+	}
+
+	/**
+	 * Finds the path of one leg, the collections are cleared first.
+	 */
+	private List<T> findPath(T start, T end, Deque<T> nodeStack, Map<T, T> backtrackMap, Set<T> visited){
+		nodeStack.clear();
+		backtrackMap.clear();
+		visited.clear();
 
 		nodeStack.push(start);
 		backtrackMap.put(start, null);
+		visited.add(start);
 
 		while(!nodeStack.isEmpty()){
 			T n = nodeStack.pop();
 
 			if(n == end){
-				return getPath(n);
+				return getPath(n, backtrackMap);
 			}
 
-			visited.add(n);
-
 			for(T link: n.getLinks()){
-				if(visited.contains(link)){
-					continue;
-				}
-
-				if(!nodeStack.contains(link)){
+				if(visited.add(link)){
 					nodeStack.push(link);
 					backtrackMap.put(link, n);
 				}
@@ -72,21 +86,229 @@ public class DepthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
 		return null;
 	}
 
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		CsrPaths.checkNodes(graph, start, end);
+		int count = graph.getNodeCount();
+
+		// contains all nodes that were pushed onto the stack, so no node is pushed twice
+		BitSet visited = new BitSet(count);
+		int[] prev = new int[count];
+
+		// every node is pushed at most once
+		int[] nodeStack = new int[count];
+		int size = 0;
+
+		nodeStack[size++] = start;
+		prev[start] = -1;
+		visited.set(start);
+
+		while(size > 0){
+			int n = nodeStack[--size];
+
+			if(n == end){
+				return CsrPaths.getPath(prev, n);
+			}
+
+			for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+				int link = graph.getTarget(e);
+
+				if(!visited.get(link)){
+					visited.set(link);
+					nodeStack[size++] = link;
+					prev[link] = n;
+				}
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Visits all nodes of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} that can be reached from the start node in
+	 * depth first order. A node is visited before the nodes it links to (pre-order) and finished after all of them
+	 * (post-order). The nodes and the next edge of every node on the path from the start node are kept on int stacks,
+	 * so even very long paths do not need deep recursion.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param preOrder
+	 *            The consumer called when a node is visited or null
+	 * @param postOrder
+	 *            The consumer called when a node is finished or null
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node does not exist
+	 */
+	public static void traverse(CsrGraph graph, int start, IntConsumer preOrder, IntConsumer postOrder){
+		CsrPaths.checkNodes(graph, start, start);
+		new Traversal(graph, false).visit(start, preOrder, postOrder);
+	}
+
+	/**
+	 * Visits all nodes of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} in depth first order like
+	 * {@link #traverse(CsrGraph, int, IntConsumer, IntConsumer)}. The search starts at every node that was not visited
+	 * yet in the order of the ids.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param preOrder
+	 *            The consumer called when a node is visited or null
+	 * @param postOrder
+	 *            The consumer called when a node is finished or null
+	 */
+	public static void traverseAll(CsrGraph graph, IntConsumer preOrder, IntConsumer postOrder){
+		Traversal traversal = new Traversal(graph, false);
+
+		for(int n = 0; n < graph.getNodeCount(); n++){
+			if(!traversal.visited.get(n)){
+				traversal.visit(n, preOrder, postOrder);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the nodes of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} so every node comes before all nodes it links
+	 * to. The nodes are sorted by the reversed post-order of a depth first search, which also finds the cycles: a link
+	 * to a node that is not finished yet closes one.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @return The ids of all nodes in topological order or null if the graph contains a cycle
+	 */
+	public static int[] topologicalSort(CsrGraph graph){
+		Traversal traversal = new Traversal(graph, true);
+		IntList finished = new IntList();
+
+		for(int n = 0; n < graph.getNodeCount(); n++){
+			if(!traversal.visited.get(n) && !traversal.visit(n, null, finished::add)){
+				return null;
+			}
+		}
+
+		int[] order = new int[finished.size()];
+		for(int i = 0; i < order.length; i++){
+			order[i] = finished.get(order.length - 1 - i);
+		}
+
+		return order;
+	}
+
 	/**
 	 * Returns a List&lt;T&gt; containing all nodes on the path between start and end
 	 * 
 	 * @param n
 	 *            The end node
+	 * @param backtrackMap
+	 *            The predecessor of every reached node
 	 * @return The Path as a List&lt;T&gt;
 	 */
-	private List<T> getPath(T n){
+	private List<T> getPath(T n, Map<T, T> backtrackMap){
 		List<T> path = new ArrayList<>();
 
 		while(n != null){
-			path.add(0, n);
+			path.add(n);
 			n = backtrackMap.get(n);
 		}
 
+		Collections.reverse(path);
 		return path;
 	}
+
+	/**
+	 * The state of a depth first traversal of a CsrGraph, the nodes visited by one call of visit are skipped by the
+	 * next one.
+	 */
+	private static final class Traversal{
+
+		private CsrGraph	graph;
+		private BitSet		visited;
+
+		// the nodes that are visited but not finished, only used to find cycles
+		private BitSet		active;
+
+		// the nodes on the path from the start node and the next edge of each of them
+		private IntList		nodeStack;
+		private IntList		edgeStack;
+
+		private Traversal(CsrGraph graph, boolean findCycles){
+			this.graph = graph;
+			this.visited = new BitSet(graph.getNodeCount());
+			this.active = findCycles ? new BitSet(graph.getNodeCount()) : null;
+			this.nodeStack = new IntList();
+			this.edgeStack = new IntList();
+		}
+
+		/**
+		 * Visits all nodes that can be reached from the start node and were not visited before.
+		 * 
+		 * @return False if a cycle was found, the traversal stops at the link that closes it
+		 */
+		private boolean visit(int start, IntConsumer preOrder, IntConsumer postOrder){
+			push(start, preOrder);
+
+			while(!nodeStack.isEmpty()){
+				int top = nodeStack.size() - 1;
+				int n = nodeStack.get(top);
+				int e = edgeStack.get(top);
+
+				if(e == graph.getEdgeEnd(n)){
+					nodeStack.removeLast();
+					edgeStack.removeLast();
+
+					if(active != null){
+						active.clear(n);
+					}
+
+					if(postOrder != null){
+						postOrder.accept(n);
+					}
+
+					continue;
+				}
+
+				edgeStack.set(top, e + 1);
+				int link = graph.getTarget(e);
+
+				if(!visited.get(link)){
+					push(link, preOrder);
+				} else if(active != null && active.get(link)){
+					nodeStack.clear();
+					edgeStack.clear();
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private void push(int n, IntConsumer preOrder){
+			visited.set(n);
+
+			if(active != null){
+				active.set(n);
+			}
+
+			if(preOrder != null){
+				preOrder.accept(n);
+			}
+
+			nodeStack.add(n);
+			edgeStack.add(graph.getEdgeStart(n));
+		}
+
+	}
+
 }
@@ -1,7 +1,12 @@
 package cf.lukasheinzl.graph.algorithm;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import cf.lukasheinzl.graph.CsrGraph;
 import cf.lukasheinzl.graph.Node;
 
 /**
@@ -16,7 +21,8 @@ import cf.lukasheinzl.graph.Node;
 public interface GraphAlgorithm<T extends Node<T>>{
 
 	/**
-	 * Finds the path from the start node (first element) to the end node (last element in list)
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list)
 	 * 
 	 * @param nodes
 	 *            The list of nodes
@@ -25,24 +31,107 @@ public interface GraphAlgorithm<T extends Node<T>>{
 	public List<T> findPath(List<T> nodes);
 
 	/**
-	 * Get an algorithm-instance by name
+	 * Finds the path through all nodes of the list like {@link #findPath(List)}, but every leg is searched on its own
+	 * thread of the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+	 * 
+	 * @param nodes
+	 *            The list of nodes
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 * @see #findPathParallel(List, ForkJoinPool)
+	 */
+	public default List<T> findPathParallel(List<T> nodes){
+		return findPathParallel(nodes, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Finds the path through all nodes of the list like {@link #findPath(List)}, but every leg is searched on its own
+	 * thread of the given pool. The algorithm must be usable by multiple threads at once, like all instances returned
+	 * by {@link #getAlgorithm(String)}, and the graph must not be changed during the search.
+	 * 
+	 * @param nodes
+	 *            The list of nodes
+	 * @param pool
+	 *            The pool to search the legs on
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 */
+	public default List<T> findPathParallel(List<T> nodes, ForkJoinPool pool){
+		if(nodes.size() <= 2){
+			return findPath(nodes);
+		}
+
+		List<ForkJoinTask<List<T>>> tasks = new ArrayList<>();
+
+		for(int i = 1; i < nodes.size(); i++){
+			List<T> leg = Arrays.asList(nodes.get(i - 1), nodes.get(i));
+			tasks.add(pool.submit(() -> findPath(leg)));
+		}
+
+		List<T> path = new ArrayList<>();
+
+		for(ForkJoinTask<List<T>> task: tasks){
+			List<T> leg = task.join();
+
+			if(leg == null){
+				tasks.forEach(t -> t.cancel(false));
+				return null;
+			}
+
+			Waypoints.append(path, leg);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Finds the path from the start node to the end node of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. The
+	 * algorithms of this package search the arrays of the graph themselves, implementations that do not override this
+	 * find the shortest path with the {@link cf.lukasheinzl.graph.algorithm.IntPathSearch IntPathSearch} of the calling
+	 * thread.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end node does not exist
+	 */
+	public default int[] findPath(CsrGraph graph, int start, int end){
+		return IntPathSearch.forThread().findPath(graph, start, end, null);
+	}
+
+	/**
+	 * Get an algorithm-instance by name.<br>
+	 * The instances are shared. A search keeps its state in local variables, which are reused for the legs of a path
+	 * through waypoints, so one instance can be used by multiple threads at once.
 	 * 
 	 * @param <T>
 	 *            The Type of Node to use the Algorithm with, must be a sub-class of {@link cf.lukasheinzl.graph.Node}
 	 * 
 	 * @param name
 	 *            The name of the algorithm
-	 * @return An instance of the algorithm or null if the given algorithm does not exist
+	 * @return The shared instance of the algorithm or null if the given algorithm does not exist
 	 */
+	@SuppressWarnings("unchecked")
 	public static <T extends Node<T>> GraphAlgorithm<T> getAlgorithm(String name){
 		if("DepthFirst".equalsIgnoreCase(name)){
-			return new DepthFirstSearch<>();
+			return (GraphAlgorithm<T>) DepthFirstSearch.INSTANCE;
 		} else if("BreadthFirst".equalsIgnoreCase(name)){
-			return new BreadthFirstSearch<>();
+			return (GraphAlgorithm<T>) BreadthFirstSearch.INSTANCE;
+		} else if("ParallelBreadthFirst".equalsIgnoreCase(name)){
+			return (GraphAlgorithm<T>) ParallelBreadthFirstSearch.INSTANCE;
 		} else if("Dijkstra".equalsIgnoreCase(name)){
-			return new Dijkstra<>();
+			return (GraphAlgorithm<T>) Dijkstra.INSTANCE;
 		} else if("AStar".equalsIgnoreCase(name)){
-			return new AStar<>();
+			return (GraphAlgorithm<T>) AStar.INSTANCE;
+		} else if("BiDijkstra".equalsIgnoreCase(name)){
+			return (GraphAlgorithm<T>) BidirectionalSearch.DIJKSTRA;
+		} else if("BiAStar".equalsIgnoreCase(name)){
+			return (GraphAlgorithm<T>) BidirectionalSearch.ASTAR;
+		} else if("CH".equalsIgnoreCase(name)){
+			return (GraphAlgorithm<T>) ContractionHierarchySearch.INSTANCE;
 		}
 
 		return null;
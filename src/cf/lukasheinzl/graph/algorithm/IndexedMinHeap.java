@@ -0,0 +1,265 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap that knows the position of every element, so the key of an element can be changed or the element
+ * can be removed in O(log n). Every element can only be contained once.
+ * 
+ * @author Lukas Heinzl
+ *
+ * @param <T>
+ *            The type of the elements
+ */
+final class IndexedMinHeap<T>{
+
+	private Object[]		elements;
+	private long[]			keys;
+	private int				size;
+
+	// the index of every element in the arrays
+	private Map<T, Integer>	positions;
+
+	/**
+	 * Constructs a new, empty heap.
+	 */
+	IndexedMinHeap(){
+		elements = new Object[16];
+		keys = new long[16];
+		positions = new HashMap<>();
+	}
+
+	/**
+	 * Adds the element with the given key or changes its key if it is already contained.
+	 * 
+	 * @param element
+	 *            The element
+	 * @param key
+	 *            The key, smaller keys are polled first
+	 */
+	void offer(T element, long key){
+		Integer pos = positions.get(element);
+
+		if(pos != null){
+			long old = keys[pos];
+			keys[pos] = key;
+
+			if(key < old){
+				siftUp(pos);
+			} else{
+				siftDown(pos);
+			}
+
+			return;
+		}
+
+		if(size == elements.length){
+			Object[] tmp = new Object[size * 2];
+			System.arraycopy(elements, 0, tmp, 0, size);
+			elements = tmp;
+
+			long[] tmp2 = new long[size * 2];
+			System.arraycopy(keys, 0, tmp2, 0, size);
+			keys = tmp2;
+		}
+
+		elements[size] = element;
+		keys[size] = key;
+		positions.put(element, size);
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes the element with the smallest key.
+	 * 
+	 * @return The element
+	 * @throws NoSuchElementException
+	 *             If the heap is empty
+	 */
+	T poll(){
+		T element = peek();
+		removeAt(0);
+		return element;
+	}
+
+	/**
+	 * Returns the element with the smallest key without removing it.
+	 * 
+	 * @return The element
+	 * @throws NoSuchElementException
+	 *             If the heap is empty
+	 */
+	T peek(){
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+
+		return elementAt(0);
+	}
+
+	/**
+	 * Returns the smallest key.
+	 * 
+	 * @return The key
+	 * @throws NoSuchElementException
+	 *             If the heap is empty
+	 */
+	long peekKey(){
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+
+		return keys[0];
+	}
+
+	/**
+	 * Removes the given element.
+	 * 
+	 * @param element
+	 *            The element
+	 * @return False if the element was not contained
+	 */
+	boolean remove(T element){
+		Integer pos = positions.get(element);
+
+		if(pos == null){
+			return false;
+		}
+
+		removeAt(pos);
+		return true;
+	}
+
+	/**
+	 * Checks if the given element is contained.
+	 * 
+	 * @param element
+	 *            The element
+	 * @return True if it is contained
+	 */
+	boolean contains(T element){
+		return positions.containsKey(element);
+	}
+
+	/**
+	 * Returns the key of the given element.
+	 * 
+	 * @param element
+	 *            The element
+	 * @return The key
+	 * @throws NoSuchElementException
+	 *             If the element is not contained
+	 */
+	long getKey(T element){
+		Integer pos = positions.get(element);
+
+		if(pos == null){
+			throw new NoSuchElementException();
+		}
+
+		return keys[pos];
+	}
+
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Removes all elements.
+	 */
+	void clear(){
+		for(int i = 0; i < size; i++){
+			elements[i] = null;
+		}
+
+		size = 0;
+		positions.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private T elementAt(int i){
+		return (T) elements[i];
+	}
+
+	private void removeAt(int pos){
+		positions.remove(elementAt(pos));
+		size--;
+
+		if(pos == size){
+			elements[size] = null;
+			return;
+		}
+
+		// the last element takes the place of the removed one and is moved to where it belongs
+		long key = keys[pos];
+		move(size, pos);
+		elements[size] = null;
+
+		if(keys[pos] < key){
+			siftUp(pos);
+		} else{
+			siftDown(pos);
+		}
+	}
+
+	private void siftUp(int pos){
+		Object element = elements[pos];
+		long key = keys[pos];
+
+		while(pos > 0){
+			int parent = (pos - 1) >>> 1;
+
+			if(keys[parent] <= key){
+				break;
+			}
+
+			move(parent, pos);
+			pos = parent;
+		}
+
+		place(element, key, pos);
+	}
+
+	private void siftDown(int pos){
+		Object element = elements[pos];
+		long key = keys[pos];
+		int half = size >>> 1;
+
+		while(pos < half){
+			int child = 2 * pos + 1;
+
+			if(child + 1 < size && keys[child + 1] < keys[child]){
+				child++;
+			}
+
+			if(key <= keys[child]){
+				break;
+			}
+
+			move(child, pos);
+			pos = child;
+		}
+
+		place(element, key, pos);
+	}
+
+	private void move(int from, int to){
+		elements[to] = elements[from];
+		keys[to] = keys[from];
+		positions.put(elementAt(to), to);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void place(Object element, long key, int pos){
+		elements[pos] = element;
+		keys[pos] = key;
+		positions.put((T) element, pos);
+	}
+
+}
@@ -0,0 +1,79 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A growable array of ints, used as list and stack of node ids without boxing them.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+final class IntList{
+
+	private int[]	values;
+	private int		size;
+
+	/**
+	 * Constructs a new, empty list.
+	 */
+	IntList(){
+		values = new int[16];
+	}
+
+	void add(int value){
+		if(size == values.length){
+			values = Arrays.copyOf(values, size * 2);
+		}
+
+		values[size++] = value;
+	}
+
+	int get(int index){
+		if(index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		return values[index];
+	}
+
+	void set(int index, int value){
+		if(index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		values[index] = value;
+	}
+
+	/**
+	 * Removes the last value, so the list can be used as stack.
+	 * 
+	 * @return The value
+	 * @throws NoSuchElementException
+	 *             If the list is empty
+	 */
+	int removeLast(){
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+
+		return values[--size];
+	}
+
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	int size(){
+		return size;
+	}
+
+	void clear(){
+		size = 0;
+	}
+
+	int[] toArray(){
+		return Arrays.copyOf(values, size);
+	}
+
+}
@@ -0,0 +1,183 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of the node ids of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. It works like
+ * {@link cf.lukasheinzl.graph.algorithm.IndexedMinHeap IndexedMinHeap} but stores the ids and the positions in arrays,
+ * so no objects are created.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+final class IntMinHeap{
+
+	private int[]	nodes;
+	private long[]	keys;
+	private int		size;
+
+	// the index of every node in the arrays or -1 if it is not contained
+	private int[]	positions;
+
+	/**
+	 * Constructs a new, empty heap for the node ids 0 to nodeCount - 1.
+	 * 
+	 * @param nodeCount
+	 *            The number of nodes
+	 */
+	IntMinHeap(int nodeCount){
+		nodes = new int[Math.max(nodeCount, 1)];
+		keys = new long[Math.max(nodeCount, 1)];
+		positions = new int[nodeCount];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Adds the node with the given key or changes its key if it is already contained.
+	 * 
+	 * @param node
+	 *            The node
+	 * @param key
+	 *            The key, smaller keys are polled first
+	 */
+	void offer(int node, long key){
+		int pos = positions[node];
+
+		if(pos != -1){
+			long old = keys[pos];
+			keys[pos] = key;
+
+			if(key < old){
+				siftUp(pos);
+			} else{
+				siftDown(pos);
+			}
+
+			return;
+		}
+
+		nodes[size] = node;
+		keys[size] = key;
+		positions[node] = size;
+		siftUp(size++);
+	}
+
+	/**
+	 * Removes the node with the smallest key.
+	 * 
+	 * @return The node
+	 * @throws NoSuchElementException
+	 *             If the heap is empty
+	 */
+	int poll(){
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+
+		int node = nodes[0];
+		positions[node] = -1;
+		size--;
+
+		if(size > 0){
+			nodes[0] = nodes[size];
+			keys[0] = keys[size];
+			positions[nodes[0]] = 0;
+			siftDown(0);
+		}
+
+		return node;
+	}
+
+	/**
+	 * Returns the smallest key.
+	 * 
+	 * @return The key
+	 * @throws NoSuchElementException
+	 *             If the heap is empty
+	 */
+	long peekKey(){
+		if(size == 0){
+			throw new NoSuchElementException();
+		}
+
+		return keys[0];
+	}
+
+	boolean contains(int node){
+		return positions[node] != -1;
+	}
+
+	boolean isEmpty(){
+		return size == 0;
+	}
+
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Removes all nodes, this only takes as long as the number of contained nodes.
+	 */
+	void clear(){
+		for(int i = 0; i < size; i++){
+			positions[nodes[i]] = -1;
+		}
+
+		size = 0;
+	}
+
+	private void siftUp(int pos){
+		int node = nodes[pos];
+		long key = keys[pos];
+
+		while(pos > 0){
+			int parent = (pos - 1) >>> 1;
+
+			if(keys[parent] <= key){
+				break;
+			}
+
+			move(parent, pos);
+			pos = parent;
+		}
+
+		place(node, key, pos);
+	}
+
+	private void siftDown(int pos){
+		int node = nodes[pos];
+		long key = keys[pos];
+		int half = size >>> 1;
+
+		while(pos < half){
+			int child = 2 * pos + 1;
+
+			if(child + 1 < size && keys[child + 1] < keys[child]){
+				child++;
+			}
+
+			if(key <= keys[child]){
+				break;
+			}
+
+			move(child, pos);
+			pos = child;
+		}
+
+		place(node, key, pos);
+	}
+
+	private void move(int from, int to){
+		nodes[to] = nodes[from];
+		keys[to] = keys[from];
+		positions[nodes[to]] = to;
+	}
+
+	private void place(int node, long key, int pos){
+		nodes[pos] = node;
+		keys[pos] = key;
+		positions[node] = pos;
+	}
+
+}
@@ -0,0 +1,263 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+import cf.lukasheinzl.graph.CsrGraph;
+
+/**
+ * This class runs the Dijkstra and A* algorithm on a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. The distances and
+ * predecessors are kept in int arrays which are reused for every search: every search has a new generation number and
+ * an entry is only valid if the node was stamped with the current generation, so the arrays never have to be cleared.
+ * Once the arrays are big enough for the graph a search does not allocate any memory.<br>
+ * An IntPathSearch can not be used by multiple threads at once, {@link #forThread()} returns an instance for the
+ * current thread.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class IntPathSearch{
+
+	private static final ThreadLocal<IntPathSearch>	LOCAL	= ThreadLocal.withInitial(IntPathSearch::new);
+
+	private IntMinHeap								nodeQueue;
+	private int[]									dist;
+	private int[]									prev;
+
+	// the generation in which a node was reached and settled, the entries of older generations are invalid
+	private int[]									reached;
+	private int[]									settled;
+	private int										generation;
+
+	// the generation in which a node was made a target and the number of targets that are not settled yet
+	private int[]									targets;
+	private int										remainingTargets;
+
+	/**
+	 * Constructs a new IntPathSearch, the arrays are allocated by the first search.
+	 */
+	public IntPathSearch(){
+		nodeQueue = new IntMinHeap(0);
+		dist = new int[0];
+		prev = new int[0];
+		reached = new int[0];
+		settled = new int[0];
+		targets = new int[0];
+	}
+
+	/**
+	 * Returns the IntPathSearch of the current thread. Its arrays stay as big as the biggest graph the thread searched.
+	 * 
+	 * @return The instance of the current thread
+	 */
+	public static IntPathSearch forThread(){
+		return LOCAL.get();
+	}
+
+	/**
+	 * Finds the shortest path from the start to the end node with the Dijkstra algorithm, or the A* algorithm if a
+	 * heuristic is given.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @param heuristic
+	 *            A function returning a lower bound of the distance between two nodes or null
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end node does not exist
+	 */
+	public int[] findPath(CsrGraph graph, int start, int end, IntBinaryOperator heuristic){
+		return search(graph, start, end, heuristic) ? getPath(end) : null;
+	}
+
+	/**
+	 * Searches the shortest path from the start to the end node like
+	 * {@link #findPath(CsrGraph, int, int, IntBinaryOperator)}, but only returns if it was found. The distances and
+	 * predecessors can be read until the next search.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @param heuristic
+	 *            A function returning a lower bound of the distance between two nodes or null
+	 * @return True if a path was found
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end node does not exist
+	 */
+	public boolean search(CsrGraph graph, int start, int end, IntBinaryOperator heuristic){
+		CsrPaths.checkNodes(graph, start, end);
+		prepare(graph.getNodeCount());
+		return run(graph, start, end, heuristic);
+	}
+
+	/**
+	 * Finds the shortest paths from the start node to all other nodes with the Dijkstra algorithm. The distances and
+	 * predecessors can be read until the next search.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node does not exist
+	 */
+	public void searchAll(CsrGraph graph, int start){
+		CsrPaths.checkNodes(graph, start, start);
+		prepare(graph.getNodeCount());
+		run(graph, start, -1, null);
+	}
+
+	/**
+	 * Finds the shortest paths from the start node to the given target nodes with the Dijkstra algorithm. The search
+	 * stops as soon as all targets are settled, so the nodes that are further away than every target are not looked
+	 * at. The distances and predecessors can be read until the next search.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param targets
+	 *            The ids of the target nodes, they may contain duplicates
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node or a target node does not exist
+	 */
+	public void searchAll(CsrGraph graph, int start, int[] targets){
+		CsrPaths.checkNodes(graph, start, start);
+		prepare(graph.getNodeCount());
+
+		for(int t: targets){
+			CsrPaths.checkNodes(graph, start, t);
+
+			if(this.targets[t] != generation){
+				this.targets[t] = generation;
+				remainingTargets++;
+			}
+		}
+
+		if(remainingTargets > 0){
+			run(graph, start, -1, null);
+		}
+	}
+
+	/**
+	 * Returns the distance from the start node of the last search to the given node. It is the length of the shortest
+	 * path for the end node and all nodes settled before it.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The distance or {@link java.lang.Integer#MAX_VALUE} if the node was not reached
+	 */
+	public int getDistance(int node){
+		return isReached(node) ? dist[node] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the predecessor of the given node on the path from the start node of the last search.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return The id of the predecessor or -1 if the node is the start node or was not reached
+	 */
+	public int getPrevious(int node){
+		return isReached(node) ? prev[node] : -1;
+	}
+
+	/**
+	 * Checks if the last search reached the given node.
+	 * 
+	 * @param node
+	 *            The id of the node
+	 * @return True if the node was reached
+	 */
+	public boolean isReached(int node){
+		return node >= 0 && node < reached.length && reached[node] == generation;
+	}
+
+	/**
+	 * Returns the path from the start node of the last search to the given node.
+	 * 
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if the node was not reached
+	 */
+	public int[] getPath(int end){
+		return isReached(end) ? CsrPaths.getPath(prev, end) : null;
+	}
+
+	private boolean run(CsrGraph graph, int start, int end, IntBinaryOperator heuristic){
+		reached[start] = generation;
+		dist[start] = 0;
+		prev[start] = -1;
+		nodeQueue.offer(start, heuristic == null ? 0 : heuristic.applyAsInt(start, end));
+
+		while(!nodeQueue.isEmpty()){
+			int n = nodeQueue.poll();
+
+			if(n == end){
+				nodeQueue.clear();
+				return true;
+			}
+
+			settled[n] = generation;
+
+			if(remainingTargets > 0 && targets[n] == generation && --remainingTargets == 0){
+				nodeQueue.clear();
+				return true;
+			}
+
+			for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+				int link = graph.getTarget(e);
+				if(settled[link] == generation){
+					continue;
+				}
+
+				int d = dist[n] + graph.getWeight(e);
+				if(reached[link] == generation && d >= dist[link]){
+					continue;
+				}
+
+				reached[link] = generation;
+				dist[link] = d;
+				prev[link] = n;
+				nodeQueue.offer(link, heuristic == null ? d : (long) d + heuristic.applyAsInt(link, end));
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Starts a new generation and grows the arrays if the graph has more nodes than the last one.
+	 */
+	private void prepare(int count){
+		if(count > dist.length){
+			nodeQueue = new IntMinHeap(count);
+			dist = new int[count];
+			prev = new int[count];
+			reached = new int[count];
+			settled = new int[count];
+			targets = new int[count];
+			generation = 0;
+		}
+
+		// only contains nodes if the last search was ended by an exception
+		nodeQueue.clear();
+		remainingTargets = 0;
+
+		// the stamps are only cleared when the generation number overflows
+		if(++generation == Integer.MAX_VALUE){
+			Arrays.fill(reached, 0);
+			Arrays.fill(settled, 0);
+			Arrays.fill(targets, 0);
+			generation = 1;
+		}
+	}
+
+}
@@ -0,0 +1,374 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.Arrays;
+
+import cf.lukasheinzl.graph.GridMap;
+
+/**
+ * This class finds shortest paths on a {@link cf.lukasheinzl.graph.GridMap GridMap} with Jump Point Search. It is A*
+ * on the cells of the grid, but instead of adding all neighbours of a cell to the queue it moves on in straight and
+ * diagonal lines until it reaches a cell where the path may have to turn (a jump point). The many paths of the same
+ * length that A* would expand on an open grid are never looked at, most cells are only read, not queued.<br>
+ * Like {@link cf.lukasheinzl.graph.algorithm.IntPathSearch IntPathSearch} the arrays are reused with generation stamps,
+ * an instance can not be used by multiple threads at once, {@link #forThread()} returns an instance for the current
+ * thread.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class JumpPointSearch{
+
+	private static final ThreadLocal<JumpPointSearch>	LOCAL	= ThreadLocal.withInitial(JumpPointSearch::new);
+
+	private IntMinHeap									openList;
+	private int[]										dist;
+	private int[]										prev;
+
+	// the generation in which a cell was reached and closed, the entries of older generations are invalid
+	private int[]										reached;
+	private int[]										closed;
+	private int											generation;
+
+	// the neighbours of the expanded cell as x, y pairs
+	private int[]										neighbours;
+	private int											neighbourCount;
+
+	private GridMap										grid;
+	private int											endX;
+	private int											endY;
+
+	/**
+	 * Constructs a new JumpPointSearch, the arrays are allocated by the first search.
+	 */
+	public JumpPointSearch(){
+		openList = new IntMinHeap(0);
+		dist = new int[0];
+		prev = new int[0];
+		reached = new int[0];
+		closed = new int[0];
+		neighbours = new int[16];
+	}
+
+	/**
+	 * Returns the JumpPointSearch of the current thread. Its arrays stay as big as the biggest grid the thread
+	 * searched.
+	 * 
+	 * @return The instance of the current thread
+	 */
+	public static JumpPointSearch forThread(){
+		return LOCAL.get();
+	}
+
+	/**
+	 * Finds a shortest path from the start cell to the end cell.
+	 * 
+	 * @param grid
+	 *            The grid
+	 * @param start
+	 *            The index of the start cell
+	 * @param end
+	 *            The index of the end cell
+	 * @return The indices of all cells on the path in order or null if no path from start to finish could be found or
+	 *         the start or end cell is blocked
+	 * @throws IndexOutOfBoundsException
+	 *             If the start or end cell is outside of the grid
+	 */
+	public int[] findPath(GridMap grid, int start, int end){
+		int cells = grid.getWidth() * grid.getHeight();
+
+		if(start < 0 || start >= cells || end < 0 || end >= cells){
+			throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Cells: " + cells);
+		}
+
+		if(!grid.isFree(grid.getX(start), grid.getY(start)) || !grid.isFree(grid.getX(end), grid.getY(end))){
+			return null;
+		}
+
+		prepare(cells);
+		this.grid = grid;
+		this.endX = grid.getX(end);
+		this.endY = grid.getY(end);
+
+		try{
+			return search(start, end);
+		} finally{
+			this.grid = null;
+		}
+	}
+
+	private int[] search(int start, int end){
+		reached[start] = generation;
+		dist[start] = 0;
+		prev[start] = -1;
+		openList.offer(start, grid.getDistance(start, end));
+
+		while(!openList.isEmpty()){
+			int cell = openList.poll();
+
+			if(cell == end){
+				openList.clear();
+				return getPath(end);
+			}
+
+			closed[cell] = generation;
+			int x = grid.getX(cell);
+			int y = grid.getY(cell);
+
+			findNeighbours(cell, x, y);
+
+			for(int i = 0; i < neighbourCount; i++){
+				int nx = neighbours[2 * i];
+				int ny = neighbours[2 * i + 1];
+				int jumpPoint = jump(nx, ny, Integer.signum(nx - x), Integer.signum(ny - y));
+
+				if(jumpPoint == -1 || closed[jumpPoint] == generation){
+					continue;
+				}
+
+				int d = dist[cell] + grid.getDistance(cell, jumpPoint);
+				if(reached[jumpPoint] == generation && d >= dist[jumpPoint]){
+					continue;
+				}
+
+				reached[jumpPoint] = generation;
+				dist[jumpPoint] = d;
+				prev[jumpPoint] = cell;
+				openList.offer(jumpPoint, (long) d + grid.getDistance(jumpPoint, end));
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Collects the neighbours of the cell that have to be looked at, given the direction it was reached from. The
+	 * start cell has all free neighbours.
+	 */
+	private void findNeighbours(int cell, int x, int y){
+		neighbourCount = 0;
+
+		if(prev[cell] == -1){
+			for(int dy = -1; dy <= 1; dy++){
+				for(int dx = -1; dx <= 1; dx++){
+					if((dx != 0 || dy != 0) && canMove(x, y, dx, dy)){
+						addNeighbour(x + dx, y + dy);
+					}
+				}
+			}
+
+			return;
+		}
+
+		int dx = Integer.signum(x - grid.getX(prev[cell]));
+		int dy = Integer.signum(y - grid.getY(prev[cell]));
+
+		if(dx != 0 && dy != 0){
+			boolean vertical = grid.isFree(x, y + dy);
+			boolean horizontal = grid.isFree(x + dx, y);
+
+			if(vertical){
+				addNeighbour(x, y + dy);
+			}
+
+			if(horizontal){
+				addNeighbour(x + dx, y);
+			}
+
+			if(vertical && horizontal && grid.isFree(x + dx, y + dy)){
+				addNeighbour(x + dx, y + dy);
+			}
+		} else if(dx != 0){
+			boolean next = grid.isFree(x + dx, y);
+			boolean up = grid.isFree(x, y - 1);
+			boolean down = grid.isFree(x, y + 1);
+
+			if(next){
+				addNeighbour(x + dx, y);
+
+				if(up && grid.isFree(x + dx, y - 1)){
+					addNeighbour(x + dx, y - 1);
+				}
+
+				if(down && grid.isFree(x + dx, y + 1)){
+					addNeighbour(x + dx, y + 1);
+				}
+			}
+
+			if(up){
+				addNeighbour(x, y - 1);
+			}
+
+			if(down){
+				addNeighbour(x, y + 1);
+			}
+		} else{
+			boolean next = grid.isFree(x, y + dy);
+			boolean left = grid.isFree(x - 1, y);
+			boolean right = grid.isFree(x + 1, y);
+
+			if(next){
+				addNeighbour(x, y + dy);
+
+				if(left && grid.isFree(x - 1, y + dy)){
+					addNeighbour(x - 1, y + dy);
+				}
+
+				if(right && grid.isFree(x + 1, y + dy)){
+					addNeighbour(x + 1, y + dy);
+				}
+			}
+
+			if(left){
+				addNeighbour(x - 1, y);
+			}
+
+			if(right){
+				addNeighbour(x + 1, y);
+			}
+		}
+	}
+
+	private void addNeighbour(int x, int y){
+		neighbours[2 * neighbourCount] = x;
+		neighbours[2 * neighbourCount + 1] = y;
+		neighbourCount++;
+	}
+
+	/**
+	 * Checks if a path can move from the cell in the given direction, a diagonal move needs both cells it passes.
+	 */
+	private boolean canMove(int x, int y, int dx, int dy){
+		if(!grid.isFree(x + dx, y + dy)){
+			return false;
+		}
+
+		return dx == 0 || dy == 0 || grid.isFree(x + dx, y) && grid.isFree(x, y + dy);
+	}
+
+	/**
+	 * Moves from the cell in the given direction until a jump point is found.
+	 * 
+	 * @return The index of the jump point or -1 if the line ends at a blocked cell
+	 */
+	private int jump(int x, int y, int dx, int dy){
+		if(dx == 0 || dy == 0){
+			return jumpStraight(x, y, dx, dy);
+		}
+
+		while(grid.isFree(x, y)){
+			if(x == endX && y == endY){
+				return grid.getCell(x, y);
+			}
+
+			// a cell of a diagonal line is a jump point if a straight line from it leads to one
+			if(jumpStraight(x + dx, y, dx, 0) != -1 || jumpStraight(x, y + dy, 0, dy) != -1){
+				return grid.getCell(x, y);
+			}
+
+			if(!canMove(x, y, dx, dy)){
+				return -1;
+			}
+
+			x += dx;
+			y += dy;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Moves horizontally or vertically until a cell is reached next to a blocked cell that ends, where paths can turn
+	 * around the corner (a forced neighbour). The grid is searched a word at a time, not cell by cell.
+	 */
+	private int jumpStraight(int x, int y, int dx, int dy){
+		int length = grid.nextBlocked(x, y, dx, dy);
+		if(length == 0){
+			return -1;
+		}
+
+		int steps = length;
+		if(dy == 0 && y == endY && (endX - x) * dx >= 0){
+			steps = Math.abs(endX - x);
+		} else if(dx == 0 && x == endX && (endY - y) * dy >= 0){
+			steps = Math.abs(endY - y);
+		}
+
+		// the forced neighbours are on the lines on both sides
+		steps = Math.min(steps, findCorner(x + dy, y + dx, dx, dy));
+		steps = Math.min(steps, findCorner(x - dy, y - dx, dx, dy));
+
+		return steps < length ? grid.getCell(x + steps * dx, y + steps * dy) : -1;
+	}
+
+	/**
+	 * Searches a line for the first free cell after a blocked one.
+	 * 
+	 * @return The number of steps to the cell or {@link java.lang.Integer#MAX_VALUE} if there is none
+	 */
+	private int findCorner(int x, int y, int dx, int dy){
+		int free;
+
+		if(grid.isFree(x - dx, y - dy)){
+			int steps = grid.nextBlocked(x, y, dx, dy);
+			free = grid.nextFree(x + steps * dx, y + steps * dy, dx, dy);
+			free = free == -1 ? -1 : steps + free;
+		} else{
+			free = grid.nextFree(x, y, dx, dy);
+		}
+
+		return free == -1 ? Integer.MAX_VALUE : free;
+	}
+
+	/**
+	 * Returns all cells on the path, the cells between two jump points are on a straight or diagonal line.
+	 */
+	private int[] getPath(int end){
+		int length = 1;
+		for(int cell = end; prev[cell] != -1; cell = prev[cell]){
+			length += grid.getDistance(cell, prev[cell]);
+		}
+
+		int[] path = new int[length];
+		int i = length;
+		path[--i] = end;
+
+		for(int cell = end; prev[cell] != -1; cell = prev[cell]){
+			int x = grid.getX(cell);
+			int y = grid.getY(cell);
+			int dx = Integer.signum(grid.getX(prev[cell]) - x);
+			int dy = Integer.signum(grid.getY(prev[cell]) - y);
+
+			for(int steps = grid.getDistance(cell, prev[cell]); steps > 0; steps--){
+				x += dx;
+				y += dy;
+				path[--i] = grid.getCell(x, y);
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * Starts a new generation and grows the arrays if the grid has more cells than the last one.
+	 */
+	private void prepare(int cells){
+		if(cells > dist.length){
+			openList = new IntMinHeap(cells);
+			dist = new int[cells];
+			prev = new int[cells];
+			reached = new int[cells];
+			closed = new int[cells];
+			generation = 0;
+		}
+
+		// only contains cells if the last search was ended by an exception
+		openList.clear();
+
+		if(++generation == Integer.MAX_VALUE){
+			Arrays.fill(reached, 0);
+			Arrays.fill(closed, 0);
+			generation = 1;
+		}
+	}
+
+}
@@ -0,0 +1,284 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import cf.lukasheinzl.graph.Node;
+
+/**
+ * This class keeps the shortest path between two nodes of a graph that changes with the Lifelong Planning A* algorithm.
+ * It remembers the distance of every node it searched (g) and the distance its predecessors offer (rhs). When a link
+ * is added, removed or changes its distance only the node it leads to is updated, the next search only looks at the
+ * nodes whose distance changed because of it instead of searching the whole graph again.<br>
+ * Unlike the {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm GraphAlgorithm}s an instance keeps the state of its
+ * search, so it must not be used by multiple threads at once. The graph must only be changed through
+ * {@link #addLink(Node, Node)}, {@link #removeLink(Node, Node)} and {@link #updateLink(Node, Node)} while it is in use.
+ * <br>
+ * Every link between two different nodes must have a distance of at least 1. Nodes linked with a distance of 0 would
+ * keep each other's distance after the links that lead to them are removed, so the search throws an
+ * {@link java.lang.IllegalArgumentException IllegalArgumentException} when it finds such a link. Links of a node to
+ * itself are ignored.
+ * 
+ * @author Lukas Heinzl
+ *
+ * @param <T>
+ *            The Type of Node to use the Algorithm with, must be a sub-class of {@link cf.lukasheinzl.graph.Node}
+ */
+public final class LifelongPlanningAStar<T extends Node<T>>{
+
+	// the distance of nodes that were not reached
+	private static final int	INFINITY	= Integer.MAX_VALUE;
+
+	private T					start;
+	private T					end;
+
+	// the estimated distance of a node to the end node, null to search like Dijkstra
+	private ToIntFunction<T>	heuristic;
+
+	// the nodes whose g and rhs values differ, keyed by min(g, rhs) + heuristic and then min(g, rhs)
+	private IndexedMinHeap<T>	nodeQueue;
+	private Map<T, Integer>		startDistMap;
+	private Map<T, Integer>		rhsMap;
+
+	/**
+	 * Constructs a new LifelongPlanningAStar that searches like {@link cf.lukasheinzl.graph.algorithm.Dijkstra
+	 * Dijkstra}, nothing is searched until the first call of {@link #findPath()}.
+	 * 
+	 * @param start
+	 *            The start node
+	 * @param end
+	 *            The end node
+	 */
+	public LifelongPlanningAStar(T start, T end){
+		this(start, end, null);
+	}
+
+	/**
+	 * Constructs a new LifelongPlanningAStar that directs the search towards the end node like
+	 * {@link cf.lukasheinzl.graph.algorithm.AStar AStar}, nothing is searched until the first call of
+	 * {@link #findPath()}.<br>
+	 * The heuristic must be consistent: the estimate of a node is never more than the distance of a link from it plus
+	 * the estimate of the node the link leads to, and the estimate of the end node is 0. Unlike AStar, which only finds
+	 * a longer path with a heuristic that overestimates, the search may stop before it finds that a removed link
+	 * disconnected the end node. The {@link cf.lukasheinzl.graph.Node#getDistance(Node) distance} of two nodes is not
+	 * consistent if it is rounded like the one of {@link cf.lukasheinzl.graph.CoordinateNode CoordinateNode}.
+	 * 
+	 * @param start
+	 *            The start node
+	 * @param end
+	 *            The end node
+	 * @param heuristic
+	 *            A function returning a consistent lower bound of the distance of a node to the end node or null to
+	 *            use none
+	 */
+	public LifelongPlanningAStar(T start, T end, ToIntFunction<T> heuristic){
+		this.start = start;
+		this.end = end;
+		this.heuristic = heuristic;
+
+		nodeQueue = new IndexedMinHeap<>();
+		startDistMap = new HashMap<>();
+		rhsMap = new HashMap<>();
+
+		rhsMap.put(start, 0);
+		nodeQueue.offer(start, key(start));
+	}
+
+	/**
+	 * Finds the shortest path from the start node to the end node. The first call searches like A*, later calls only
+	 * repair the part of the search that was changed since the last one.
+	 * 
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 * @throws IllegalArgumentException
+	 *             If the search finds a link between two different nodes with a distance of 0, the instance can not be
+	 *             used after that
+	 */
+	public List<T> findPath(){
+		computeShortestPath();
+
+		if(getG(end) == INFINITY){
+			return null;
+		}
+
+		List<T> path = new ArrayList<>();
+		Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		// walks back over the predecessors whose distance plus link is the distance of the node
+		for(T n = end; n != start;){
+			path.add(n);
+			visited.add(n);
+
+			T best = null;
+			long bestDist = Long.MAX_VALUE;
+
+			for(T pred: n.getReverseLinks()){
+				// also skips the links of the node to itself
+				if(visited.contains(pred)){
+					continue;
+				}
+
+				long dist = distanceOver(pred, n);
+
+				if(dist < bestDist){
+					best = pred;
+					bestDist = dist;
+				}
+			}
+
+			if(best == null){
+				return null;
+			}
+
+			n = best;
+		}
+
+		path.add(start);
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Returns the length of the shortest path from the start node to the end node.
+	 * 
+	 * @return The length or {@link java.lang.Integer#MAX_VALUE} if there is no path
+	 * @throws IllegalArgumentException
+	 *             If the search finds a link between two different nodes with a distance of 0, the instance can not be
+	 *             used after that
+	 */
+	public int getDistance(){
+		computeShortestPath();
+		return getG(end);
+	}
+
+	/**
+	 * Links the node to another one and updates the search.
+	 * 
+	 * @param from
+	 *            The node the link starts at
+	 * @param to
+	 *            The node the link leads to
+	 */
+	public void addLink(T from, T to){
+		from.link(to);
+		updateNode(to);
+	}
+
+	/**
+	 * Removes a link between two nodes and updates the search.
+	 * 
+	 * @param from
+	 *            The node the link starts at
+	 * @param to
+	 *            The node the link leads to
+	 * @return True if the link was removed, false if there was none
+	 */
+	public boolean removeLink(T from, T to){
+		if(!from.unlink(to)){
+			return false;
+		}
+
+		updateNode(to);
+		return true;
+	}
+
+	/**
+	 * Updates the search after the distance between two nodes changed, or after they were linked or unlinked without
+	 * this class.
+	 * 
+	 * @param from
+	 *            The node the link starts at
+	 * @param to
+	 *            The node the link leads to
+	 */
+	public void updateLink(T from, T to){
+		updateNode(to);
+	}
+
+	private void computeShortestPath(){
+		while(!nodeQueue.isEmpty() && (nodeQueue.peekKey() < key(end) || getRhs(end) != getG(end))){
+			T n = nodeQueue.poll();
+
+			if(getG(n) > getRhs(n)){
+				startDistMap.put(n, getRhs(n));
+			} else{
+				startDistMap.remove(n);
+				updateNode(n);
+			}
+
+			for(T link: n.getLinks()){
+				updateNode(link);
+			}
+		}
+	}
+
+	/**
+	 * Computes the rhs value of the node from its predecessors and queues it if it differs from its distance.
+	 */
+	private void updateNode(T n){
+		if(n != start){
+			long rhs = INFINITY;
+
+			for(T pred: n.getReverseLinks()){
+				// a node can not be its own predecessor on a shortest path
+				if(pred != n){
+					rhs = Math.min(rhs, distanceOver(pred, n));
+				}
+			}
+
+			if(rhs == INFINITY){
+				rhsMap.remove(n);
+			} else{
+				rhsMap.put(n, (int) rhs);
+			}
+		}
+
+		if(getG(n) != getRhs(n)){
+			nodeQueue.offer(n, key(n));
+		} else{
+			nodeQueue.remove(n);
+		}
+	}
+
+	/**
+	 * Returns the distance of the node over its predecessor, at most {@link #INFINITY}.
+	 */
+	private long distanceOver(T pred, T n){
+		int g = getG(pred);
+
+		if(g == INFINITY){
+			return INFINITY;
+		}
+
+		int distance = pred.getDistance(n);
+		if(distance < 1){
+			throw new IllegalArgumentException("The link from " + pred + " to " + n + " has the distance " + distance);
+		}
+
+		return Math.min(INFINITY, (long) g + distance);
+	}
+
+	/**
+	 * Returns both parts of the key of the node in one long, the first one in the upper half.
+	 */
+	private long key(T n){
+		int min = Math.min(getG(n), getRhs(n));
+		long estimate = heuristic != null && min != INFINITY ? heuristic.applyAsInt(n) : 0;
+
+		return Math.min(INFINITY, min + estimate) << 32 | min;
+	}
+
+	private int getG(T n){
+		return startDistMap.getOrDefault(n, INFINITY);
+	}
+
+	private int getRhs(T n){
+		return rhsMap.getOrDefault(n, INFINITY);
+	}
+
+}
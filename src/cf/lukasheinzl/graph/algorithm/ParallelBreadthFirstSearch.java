@@ -0,0 +1,446 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+
+import cf.lukasheinzl.graph.CsrGraph;
+import cf.lukasheinzl.graph.Node;
+
+/**
+ * This class is an {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm GraphAlgorithm} implementation of a parallel
+ * breadth first search of a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph}. The nodes of a level are split among the
+ * threads of a {@link java.util.concurrent.ForkJoinPool ForkJoinPool}, the next level is started once all of them are
+ * done.<br>
+ * While the frontier is small every thread follows the links of its frontier nodes and claims the nodes it reaches
+ * (top-down). Once the links of the frontier are more than the links of all nodes not reached yet, every thread looks
+ * at its nodes that were not reached and searches a frontier node among the nodes that link to them, which stops at
+ * the first one found (bottom-up). The bottom-up steps use the {@link cf.lukasheinzl.graph.CsrGraph#reverse() reversed
+ * graph}, it is created by the first bottom-up step of a graph.<br>
+ * Object graphs are searched by {@link cf.lukasheinzl.graph.algorithm.BreadthFirstSearch BreadthFirstSearch}, a graph
+ * of nodes can be converted with {@link cf.lukasheinzl.graph.CsrGraph#fromNodes(List) CsrGraph.fromNodes} to be
+ * searched in parallel.<br>
+ * {@link #getParents(CsrGraph, int)} and {@link #getDistances(CsrGraph, int)} search the whole graph and can be called
+ * without an instance.
+ * 
+ * @author Lukas Heinzl
+ *
+ * @param <T>
+ *            The Type of Node to use the Algorithm with, must be a sub-class of {@link cf.lukasheinzl.graph.Node}
+ */
+public class ParallelBreadthFirstSearch<T extends Node<T>> implements GraphAlgorithm<T>{
+
+	static final ParallelBreadthFirstSearch<?>	INSTANCE			= new ParallelBreadthFirstSearch<>();
+
+	// the search goes bottom-up once the links of the frontier are more than 1 / ALPHA of the links not checked yet
+	private static final int					ALPHA				= 14;
+
+	// the search goes top-down again once the frontier shrinks and has less than 1 / BETA of the nodes
+	private static final int					BETA				= 24;
+
+	// top-down frontiers with fewer nodes are expanded on the calling thread
+	private static final int					SEQUENTIAL_LIMIT	= 1024;
+
+	/**
+	 * Package-private constructor, the shared instance can be obtained from
+	 * {@link cf.lukasheinzl.graph.algorithm.GraphAlgorithm#getAlgorithm(String) getAlgorithm(String)}
+	 */
+	ParallelBreadthFirstSearch(){
+	}
+
+	/**
+	 * Finds the path from the start node (first element) through all waypoints (the elements in between) to the end
+	 * node (last element in list). The parallel search needs the arrays of a CsrGraph, so object graphs are searched
+	 * by {@link cf.lukasheinzl.graph.algorithm.BreadthFirstSearch BreadthFirstSearch} on the calling thread.
+	 * 
+	 * @param nodes
+	 *            The list of nodes
+	 * @return The list of nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public List<T> findPath(List<T> nodes){
+		return ((GraphAlgorithm<T>) BreadthFirstSearch.INSTANCE).findPath(nodes);
+	}
+
+	/**
+	 * Finds the path with the fewest edges from the start node to the end node of a
+	 * {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common pool}. The search stops after the level the end node is reached in.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param end
+	 *            The id of the end node
+	 * @return The ids of the nodes on the path in order or null if no path from start to finish could be found
+	 */
+	@Override
+	public int[] findPath(CsrGraph graph, int start, int end){
+		CsrPaths.checkNodes(graph, start, end);
+
+		Search search = new Search(graph, ForkJoinPool.commonPool());
+		search.run(start, end);
+
+		return search.isVisited(end) ? CsrPaths.getPath(search.parents, end) : null;
+	}
+
+	/**
+	 * Searches the whole graph from the start node using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common pool}.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @return The predecessor of every node on a path with the fewest edges from the start node, -1 for the start node
+	 *         and all nodes that can not be reached
+	 * @see #getParents(CsrGraph, int, ForkJoinPool)
+	 */
+	public static int[] getParents(CsrGraph graph, int start){
+		return getParents(graph, start, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Searches the whole graph from the start node using the given pool.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param pool
+	 *            The pool to expand the levels on
+	 * @return The predecessor of every node on a path with the fewest edges from the start node, -1 for the start node
+	 *         and all nodes that can not be reached
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node does not exist
+	 */
+	public static int[] getParents(CsrGraph graph, int start, ForkJoinPool pool){
+		CsrPaths.checkNodes(graph, start, start);
+
+		Search search = new Search(graph, pool);
+		search.run(start, -1);
+
+		return search.parents;
+	}
+
+	/**
+	 * Searches the whole graph from the start node using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common pool}.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @return The number of edges from the start node to every node or {@link java.lang.Integer#MAX_VALUE} if the
+	 *         node can not be reached
+	 * @see #getDistances(CsrGraph, int, ForkJoinPool)
+	 */
+	public static int[] getDistances(CsrGraph graph, int start){
+		return getDistances(graph, start, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Searches the whole graph from the start node using the given pool.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param pool
+	 *            The pool to expand the levels on
+	 * @return The number of edges from the start node to every node or {@link java.lang.Integer#MAX_VALUE} if the
+	 *         node can not be reached
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node does not exist
+	 */
+	public static int[] getDistances(CsrGraph graph, int start, ForkJoinPool pool){
+		CsrPaths.checkNodes(graph, start, start);
+
+		Search search = new Search(graph, pool);
+		search.run(start, -1);
+
+		return search.distances;
+	}
+
+	/**
+	 * The state of one search. The frontier is a list of nodes in the top-down steps and a bitset in the bottom-up
+	 * steps. The arrays are written by the threads of the pool, joining their tasks makes the writes visible.
+	 */
+	private static final class Search{
+
+		private CsrGraph		graph;
+		private CsrGraph		reversed;
+		private ForkJoinPool	pool;
+		private int				count;
+		private int				words;
+
+		private int[]			parents;
+		private int[]			distances;
+
+		// the bit of a node is set once it is reached, the top-down steps claim a node with compare-and-set
+		private AtomicLongArray	visited;
+
+		// the frontier and the next frontier, only the lists or the bitsets are used at a time
+		private int[]			list;
+		private int[]			nextList;
+		private long[]			bits;
+		private long[]			nextBits;
+
+		// the number of nodes in the frontier and the number of their links
+		private int				size;
+		private long			edges;
+
+		private Search(CsrGraph graph, ForkJoinPool pool){
+			this.graph = graph;
+			this.pool = pool;
+			this.count = graph.getNodeCount();
+			this.words = (count + 63) >>> 6;
+
+			parents = new int[count];
+			distances = new int[count];
+			visited = new AtomicLongArray(words);
+
+			Arrays.fill(parents, -1);
+			Arrays.fill(distances, Integer.MAX_VALUE);
+		}
+
+		/**
+		 * Searches level by level until no node is left or the end node is reached.
+		 */
+		private void run(int start, int end){
+			list = new int[count];
+			nextList = new int[count];
+			list[0] = start;
+			size = 1;
+			edges = graph.getDegree(start);
+
+			distances[start] = 0;
+			claim(start);
+
+			// the links of the nodes that were not reached yet, the bottom-up steps check at most these
+			long unchecked = graph.getEdgeCount() - edges;
+			boolean bottomUp = false;
+
+			for(int level = 1; size > 0 && (end == -1 || !isVisited(end)); level++){
+				int lastSize = size;
+
+				if(!bottomUp && edges > unchecked / ALPHA){
+					toBits();
+					bottomUp = true;
+				}
+
+				if(bottomUp){
+					bottomUp(level);
+				} else{
+					topDown(level);
+				}
+
+				unchecked -= edges;
+
+				if(bottomUp && size < count / BETA && size <= lastSize){
+					toList();
+					bottomUp = false;
+				}
+			}
+		}
+
+		private void topDown(int level){
+			int chunks = size < SEQUENTIAL_LIMIT ? 1 : Math.min(size, pool.getParallelism() * 4);
+			List<IntList> found = runChunks(size, chunks, (first, limit) -> expand(first, limit, level));
+
+			int nextSize = 0;
+			long nextEdges = 0;
+
+			for(IntList l: found){
+				for(int i = 0; i < l.size(); i++){
+					int n = l.get(i);
+					nextList[nextSize++] = n;
+					nextEdges += graph.getDegree(n);
+				}
+			}
+
+			int[] swap = list;
+			list = nextList;
+			nextList = swap;
+			size = nextSize;
+			edges = nextEdges;
+		}
+
+		/**
+		 * Follows the links of the frontier nodes from first to limit and returns the nodes this thread claimed.
+		 */
+		private IntList expand(int first, int limit, int level){
+			IntList found = new IntList();
+
+			for(int i = first; i < limit; i++){
+				int n = list[i];
+
+				for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+					int link = graph.getTarget(e);
+
+					if(claim(link)){
+						parents[link] = n;
+						distances[link] = level;
+						found.add(link);
+					}
+				}
+			}
+
+			return found;
+		}
+
+		private void bottomUp(int level){
+			if(reversed == null){
+				reversed = graph.reverse();
+			}
+
+			// every thread gets whole words, so no other thread writes the visited bits of its nodes
+			List<long[]> found = runChunks(words, Math.min(words, pool.getParallelism() * 4),
+					(first, limit) -> search(first, limit, level));
+
+			size = 0;
+			edges = 0;
+
+			for(long[] f: found){
+				size += (int) f[0];
+				edges += f[1];
+			}
+
+			long[] swap = bits;
+			bits = nextBits;
+			nextBits = swap;
+		}
+
+		/**
+		 * Searches a frontier node that links to each node of the words from first to limit that was not reached yet.
+		 * 
+		 * @return The number of nodes found and the number of their links
+		 */
+		private long[] search(int first, int limit, int level){
+			long[] found = new long[2];
+
+			for(int w = first; w < limit; w++){
+				long word = visited.get(w);
+				long unvisited = ~word;
+				long next = 0;
+
+				if(w == words - 1 && (count & 63) != 0){
+					unvisited &= (1L << count) - 1;
+				}
+
+				while(unvisited != 0){
+					int bit = Long.numberOfTrailingZeros(unvisited);
+					int n = (w << 6) + bit;
+					unvisited &= unvisited - 1;
+
+					for(int e = reversed.getEdgeStart(n), last = reversed.getEdgeEnd(n); e < last; e++){
+						int parent = reversed.getTarget(e);
+
+						if((bits[parent >>> 6] & 1L << parent) != 0){
+							parents[n] = parent;
+							distances[n] = level;
+							next |= 1L << bit;
+							found[0]++;
+							found[1] += graph.getDegree(n);
+							break;
+						}
+					}
+				}
+
+				nextBits[w] = next;
+				if(next != 0){
+					visited.set(w, word | next);
+				}
+			}
+
+			return found;
+		}
+
+		private void toBits(){
+			if(bits == null){
+				bits = new long[words];
+				nextBits = new long[words];
+			} else{
+				Arrays.fill(bits, 0);
+			}
+
+			for(int i = 0; i < size; i++){
+				bits[list[i] >>> 6] |= 1L << list[i];
+			}
+		}
+
+		private void toList(){
+			int i = 0;
+
+			for(int w = 0; w < words; w++){
+				for(long word = bits[w]; word != 0; word &= word - 1){
+					list[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+				}
+			}
+
+			size = i;
+		}
+
+		/**
+		 * Runs the function for the given number of ranges of 0 to length, the first range is run on the calling
+		 * thread.
+		 */
+		private <R> List<R> runChunks(int length, int chunks, BiFunction<Integer, Integer, R> function){
+			if(chunks == 1){
+				return Collections.singletonList(function.apply(0, length));
+			}
+
+			List<ForkJoinTask<R>> tasks = new ArrayList<>();
+
+			for(int i = 1; i < chunks; i++){
+				int first = (int) ((long) length * i / chunks);
+				int limit = (int) ((long) length * (i + 1) / chunks);
+				tasks.add(pool.submit(() -> function.apply(first, limit)));
+			}
+
+			List<R> results = new ArrayList<>();
+			results.add(function.apply(0, (int) ((long) length / chunks)));
+
+			for(ForkJoinTask<R> task: tasks){
+				results.add(task.join());
+			}
+
+			return results;
+		}
+
+		/**
+		 * Marks the node as visited.
+		 * 
+		 * @return True if this thread marked it, false if it was visited before
+		 */
+		private boolean claim(int n){
+			int w = n >>> 6;
+			long bit = 1L << n;
+
+			while(true){
+				long word = visited.get(w);
+
+				if((word & bit) != 0){
+					return false;
+				}
+
+				if(visited.compareAndSet(w, word, word | bit)){
+					return true;
+				}
+			}
+		}
+
+		private boolean isVisited(int n){
+			return (visited.get(n >>> 6) & 1L << n) != 0;
+		}
+
+	}
+
+}
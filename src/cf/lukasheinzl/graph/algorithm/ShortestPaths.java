@@ -0,0 +1,181 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import cf.lukasheinzl.graph.CsrGraph;
+
+/**
+ * This class answers many shortest path queries on a {@link cf.lukasheinzl.graph.CsrGraph CsrGraph} at once: the
+ * distances from one node to many others with a single Dijkstra search, and the distances between all pairs of nodes.
+ * Object graphs can be converted with {@link cf.lukasheinzl.graph.CsrGraph#fromNodes(List) CsrGraph.fromNodes}.<br>
+ * Distances of nodes that can not be reached are {@link java.lang.Integer#MAX_VALUE}.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class ShortestPaths{
+
+	// graphs with at least nodeCount^2 / DENSE_DIVISOR edges are searched with Floyd-Warshall, the Dijkstra searches
+	// spend more time on the queue than Floyd-Warshall on its n^3 steps once most nodes are linked to each other
+	private static final int	DENSE_DIVISOR	= 4;
+
+	// no one should instantiate this class
+	private ShortestPaths(){
+	}
+
+	/**
+	 * Finds the distances from the start node to the given target nodes. The search stops as soon as all targets are
+	 * settled.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param start
+	 *            The id of the start node
+	 * @param targets
+	 *            The ids of the target nodes
+	 * @return The distance of every target in the order of the targets
+	 * @throws IndexOutOfBoundsException
+	 *             If the start node or a target node does not exist
+	 */
+	public static int[] oneToMany(CsrGraph graph, int start, int[] targets){
+		IntPathSearch search = IntPathSearch.forThread();
+		search.searchAll(graph, start, targets);
+
+		int[] distances = new int[targets.length];
+		for(int i = 0; i < targets.length; i++){
+			distances[i] = search.getDistance(targets[i]);
+		}
+
+		return distances;
+	}
+
+	/**
+	 * Finds the distances between all pairs of nodes using the {@link java.util.concurrent.ForkJoinPool#commonPool()
+	 * common pool}.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @return The distance matrix, the distance from node a to node b is at index <code>a * nodeCount + b</code>
+	 * @throws IllegalArgumentException
+	 *             If the matrix would have more than {@link java.lang.Integer#MAX_VALUE} entries
+	 * @see #allPairs(CsrGraph, ForkJoinPool)
+	 */
+	public static int[] allPairs(CsrGraph graph){
+		return allPairs(graph, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Finds the distances between all pairs of nodes using the given pool. Dense graphs are searched with
+	 * {@link #floydWarshall(CsrGraph)}, all others with a Dijkstra search from every node, the searches are split
+	 * among the threads of the pool.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @param pool
+	 *            The pool to run the searches on
+	 * @return The distance matrix, the distance from node a to node b is at index <code>a * nodeCount + b</code>
+	 * @throws IllegalArgumentException
+	 *             If the matrix would have more than {@link java.lang.Integer#MAX_VALUE} entries
+	 */
+	public static int[] allPairs(CsrGraph graph, ForkJoinPool pool){
+		int count = graph.getNodeCount();
+
+		if((long) graph.getEdgeCount() * DENSE_DIVISOR >= (long) count * count){
+			return floydWarshall(graph);
+		}
+
+		int[] matrix = createMatrix(count);
+		int chunks = Math.min(count, pool.getParallelism() * 4);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+		for(int i = 0; i < chunks; i++){
+			int first = (int) ((long) count * i / chunks);
+			int limit = (int) ((long) count * (i + 1) / chunks);
+			tasks.add(pool.submit(() -> searchRows(graph, matrix, first, limit)));
+		}
+
+		for(ForkJoinTask<?> task: tasks){
+			task.join();
+		}
+
+		return matrix;
+	}
+
+	/**
+	 * Finds the distances between all pairs of nodes with the Floyd-Warshall algorithm on the calling thread. It takes
+	 * n^3 steps no matter how many edges the graph has, so it is only faster than the Dijkstra searches of
+	 * {@link #allPairs(CsrGraph)} if most nodes are linked to each other.
+	 * 
+	 * @param graph
+	 *            The graph
+	 * @return The distance matrix, the distance from node a to node b is at index <code>a * nodeCount + b</code>
+	 * @throws IllegalArgumentException
+	 *             If the matrix would have more than {@link java.lang.Integer#MAX_VALUE} entries
+	 */
+	public static int[] floydWarshall(CsrGraph graph){
+		int count = graph.getNodeCount();
+		int[] matrix = createMatrix(count);
+
+		for(int n = 0; n < count; n++){
+			int row = n * count;
+			matrix[row + n] = 0;
+
+			for(int e = graph.getEdgeStart(n), last = graph.getEdgeEnd(n); e < last; e++){
+				int target = row + graph.getTarget(e);
+				matrix[target] = Math.min(matrix[target], graph.getWeight(e));
+			}
+		}
+
+		for(int k = 0; k < count; k++){
+			int rowK = k * count;
+
+			for(int i = 0; i < count; i++){
+				int rowI = i * count;
+				int ik = matrix[rowI + k];
+
+				if(ik == Integer.MAX_VALUE){
+					continue;
+				}
+
+				// the inner loop only reads row k and writes row i, so it runs over both arrays in order
+				for(int j = 0; j < count; j++){
+					int kj = matrix[rowK + j];
+
+					if(kj != Integer.MAX_VALUE && ik + kj < matrix[rowI + j]){
+						matrix[rowI + j] = ik + kj;
+					}
+				}
+			}
+		}
+
+		return matrix;
+	}
+
+	private static void searchRows(CsrGraph graph, int[] matrix, int first, int limit){
+		IntPathSearch search = IntPathSearch.forThread();
+		int count = graph.getNodeCount();
+
+		for(int start = first; start < limit; start++){
+			search.searchAll(graph, start);
+
+			for(int n = 0, row = start * count; n < count; n++){
+				matrix[row + n] = search.getDistance(n);
+			}
+		}
+	}
+
+	private static int[] createMatrix(int count){
+		if((long) count * count > Integer.MAX_VALUE){
+			throw new IllegalArgumentException("Too many nodes for a distance matrix: " + count);
+		}
+
+		int[] matrix = new int[count * count];
+		Arrays.fill(matrix, Integer.MAX_VALUE);
+		return matrix;
+	}
+
+}
@@ -0,0 +1,61 @@
+package cf.lukasheinzl.graph.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * This class contains the methods the algorithms use to find a path through a list of waypoints, one leg after
+ * another.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+final class Waypoints{
+
+	// no one should instantiate this class
+	private Waypoints(){
+	}
+
+	/**
+	 * Finds the path from the first to the last node that visits all nodes of the list in order.
+	 * 
+	 * @param nodes
+	 *            The start node, the waypoints and the end node
+	 * @param legs
+	 *            The function that finds the path between two nodes or returns null
+	 * @return The whole path or null if a leg could not be found
+	 */
+	static <T> List<T> join(List<T> nodes, BiFunction<T, T, List<T>> legs){
+		if(nodes.size() <= 2){
+			return legs.apply(nodes.get(0), nodes.get(nodes.size() - 1));
+		}
+
+		List<T> path = new ArrayList<>();
+
+		for(int i = 1; i < nodes.size(); i++){
+			List<T> leg = legs.apply(nodes.get(i - 1), nodes.get(i));
+
+			if(leg == null){
+				return null;
+			}
+
+			append(path, leg);
+		}
+
+		return path;
+	}
+
+	/**
+	 * Appends a leg to a path, the first node of the leg is the last node of the path, so it is skipped.
+	 * 
+	 * @param path
+	 *            The path so far
+	 * @param leg
+	 *            The next leg
+	 */
+	static <T> void append(List<T> path, List<T> leg){
+		path.addAll(path.isEmpty() ? leg : leg.subList(1, leg.size()));
+	}
+
+}
@@ -1,6 +1,8 @@
 
 /**
  * This package contains the {@link cf.lukasheinzl.graph.Node} as a base node class for the algorithms in the
- * {@link cf.lukasheinzl.graph.algorithm} package
+ * {@link cf.lukasheinzl.graph.algorithm} package and the {@link cf.lukasheinzl.graph.CsrGraph} as a compact
+ * representation of large graphs, as well as the {@link cf.lukasheinzl.graph.GridMap} for grids
+ * that are searched without nodes
  */
 package cf.lukasheinzl.graph;
\ No newline at end of file
@@ -0,0 +1,409 @@
+package cf.lukasheinzl.lexing;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * This class is used to keep the tokens of a text up to date while the text is edited. After an edit only the tokens
+ * that could have changed are lexed again, starting at the first token whose match looked at the edited part of the
+ * text and stopping as soon as a new token ends where an old token behind the edit started.<br>
+ * The tokens are stored in a gap buffer at the position of the last edit. The offsets of the tokens behind the gap are
+ * stored relative to the end of the text, so they do not have to be updated when text before them changes.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class IncrementalLexer{
+
+	private TokenAutomaton	automaton;
+	private boolean			trim;
+	private StringBuilder	text;
+
+	// the tokens, the ones at and after gapEnd store their offsets as (offset - text.length())
+	private TokenType[]		types;
+	private int[]			starts;
+	private int[]			ends;
+
+	// how far the lexer looked to find a token and the maximum of that up to the token, see TokenAutomaton#lookahead
+	private int[]			looks;
+	private int[]			maxLooks;
+
+	private int				gapStart;
+	private int				gapEnd;
+
+	/**
+	 * Constructs a new IncrementalLexer and lexes the given text.
+	 * 
+	 * @param text
+	 *            The text to lex, it is copied
+	 * @param data
+	 *            The {@link java.util.List List&lt;TokenData&gt;} containing the 'rules' on how to lex the text
+	 * @param trim
+	 *            If white-space around the tokens should be skipped, see
+	 *            {@link cf.lukasheinzl.lexing.Lexer#Lexer(CharSequence, List, boolean) Lexer}
+	 */
+	public IncrementalLexer(CharSequence text, List<TokenData> data, boolean trim){
+		this(text, TokenAutomaton.compile(data), trim);
+	}
+
+	/**
+	 * Constructs a new IncrementalLexer that uses a compiled {@link cf.lukasheinzl.lexing.TokenAutomaton
+	 * TokenAutomaton} and lexes the given text.
+	 * 
+	 * @param text
+	 *            The text to lex, it is copied
+	 * @param automaton
+	 *            The compiled 'rules' on how to lex the text
+	 * @param trim
+	 *            If white-space around the tokens should be skipped, see
+	 *            {@link cf.lukasheinzl.lexing.Lexer#Lexer(CharSequence, TokenAutomaton, boolean) Lexer}
+	 */
+	public IncrementalLexer(CharSequence text, TokenAutomaton automaton, boolean trim){
+		this.automaton = automaton;
+		this.trim = trim;
+		this.text = new StringBuilder(text);
+		this.types = new TokenType[16];
+		this.starts = new int[16];
+		this.ends = new int[16];
+		this.looks = new int[16];
+		this.maxLooks = new int[16];
+		this.gapEnd = 16;
+
+		edit(0, 0, "");
+	}
+
+	/**
+	 * Replaces a part of the text and lexes the tokens that could have changed again. If the new text can not be lexed
+	 * the edit is undone.
+	 * 
+	 * @param offset
+	 *            The offset where the edit happens
+	 * @param removed
+	 *            The number of characters to remove at the offset
+	 * @param inserted
+	 *            The text to insert at the offset
+	 * @throws IllegalStateException
+	 *             If the edited text can not be lexed
+	 */
+	public void edit(int offset, int removed, CharSequence inserted){
+		if(offset < 0 || removed < 0 || offset + removed > text.length()){
+			throw new IndexOutOfBoundsException("Invalid edit: " + offset + ", " + removed);
+		}
+
+		// the tokens before tail start before the edit, the ones before first did not look at the edit
+		int tail = firstStartingAtOrAfter(offset);
+		int first = firstLookingAfter(offset, tail);
+		int last = first;
+
+		for(int i = tail - 1; i > first; i--){
+			if(look(i) > offset){
+				last = i;
+				break;
+			}
+		}
+
+		moveGap(first);
+
+		// from here on the old tokens are addressed by their distance to the gap end
+		int count = types.length - gapEnd;
+		tail -= first;
+		last -= first;
+
+		int oldLength = text.length();
+		String old = text.substring(offset, offset + removed);
+		text.replace(offset, offset + removed, inserted.toString());
+
+		int next = 0;
+		int added = 0;
+
+		// false until a new token ends where an old one behind the edit started
+		boolean resynced = false;
+
+		try{
+			Lexer l = new Lexer(text, first == 0 ? 0 : end(first - 1), text.length(), automaton.getData(), automaton,
+					trim);
+
+			for(Token t = l.nextToken(); t.getType() != TokenType.EMPTY; t = l.nextToken()){
+				insert(t.getType(), t.getStart(), t.getEnd(), l.lookahead());
+				added++;
+
+				int pos = skip(t.getEnd());
+
+				while(next < count && oldOffset(starts, next, tail, oldLength) < pos){
+					next++;
+				}
+
+				if(next == count || oldOffset(starts, next, tail, oldLength) != pos){
+					continue;
+				}
+
+				if(next >= tail){
+					if(pos >= offset + inserted.length()){
+						resynced = true;
+						break;
+					}
+
+					continue;
+				}
+
+				if(next > last){
+					// the tokens up to the edit did not look at it, so only the tokens after them have to be lexed
+					for(; next < tail; next++){
+						insert(types[gapEnd + next], oldOffset(starts, next, tail, oldLength),
+								oldOffset(ends, next, tail, oldLength), oldOffset(looks, next, tail, oldLength));
+						added++;
+					}
+
+					l = new Lexer(text, end(gapStart - 1), text.length(), automaton.getData(), automaton, trim);
+				}
+			}
+		} catch(IllegalStateException e){
+			gapStart -= added;
+			text.replace(offset, offset + inserted.length(), old);
+			throw e;
+		}
+
+		// the lexer reached the end of the text, so all old tokens were lexed again
+		if(!resynced){
+			next = count;
+		}
+
+		// the tokens that were lexed again are dropped, the remaining ones moved with the end of the text
+		gapEnd += next;
+		updateMaxLooks();
+	}
+
+	/**
+	 * Returns a view of the current tokens. It changes with every edit, the tokens it returns do not.
+	 * 
+	 * @return The tokens of the text
+	 */
+	public List<Token> getTokens(){
+		return new TokenList();
+	}
+
+	/**
+	 * Returns the number of tokens.
+	 */
+	private int size(){
+		return gapStart + types.length - gapEnd;
+	}
+
+	/**
+	 * Returns the index in the arrays of the token with the given index.
+	 */
+	private int index(int i){
+		return i < gapStart ? i : i + gapEnd - gapStart;
+	}
+
+	private TokenType type(int i){
+		return types[index(i)];
+	}
+
+	private int start(int i){
+		return i < gapStart ? starts[i] : toAbsolute(starts[index(i)]);
+	}
+
+	private int end(int i){
+		return i < gapStart ? ends[i] : toAbsolute(ends[index(i)]);
+	}
+
+	private int look(int i){
+		return i < gapStart ? looks[i] : toAbsolute(looks[index(i)]);
+	}
+
+	private int maxLook(int i){
+		return i < gapStart ? maxLooks[i] : toAbsolute(maxLooks[index(i)]);
+	}
+
+	private int toAbsolute(int offset){
+		return offset == Integer.MAX_VALUE ? offset : offset + text.length();
+	}
+
+	private int toRelative(int offset){
+		return offset == Integer.MAX_VALUE ? offset : offset - text.length();
+	}
+
+	/**
+	 * Returns an offset of an old token during an edit. The tokens before tail did not move, but are stored relative to
+	 * the end of the text from before the edit. The tokens after it moved with the end of the text.
+	 */
+	private int oldOffset(int[] offsets, int i, int tail, int oldLength){
+		int offset = offsets[gapEnd + i];
+
+		if(offset == Integer.MAX_VALUE){
+			return offset;
+		}
+
+		return offset + (i < tail ? oldLength : text.length());
+	}
+
+	/**
+	 * Returns the offset where the lexer starts its next token if it is positioned at the given offset.
+	 */
+	private int skip(int pos){
+		if(trim){
+			while(pos < text.length() && text.charAt(pos) <= ' '){
+				pos++;
+			}
+		}
+
+		return pos;
+	}
+
+	/**
+	 * Returns the index of the first token that starts at or after the given offset.
+	 */
+	private int firstStartingAtOrAfter(int offset){
+		int lo = 0;
+		int hi = size();
+
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+
+			if(start(mid) < offset){
+				lo = mid + 1;
+			} else{
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Returns the index of the first token before the limit that looked at the given offset or any offset after it, or
+	 * the limit if there is none.
+	 */
+	private int firstLookingAfter(int offset, int limit){
+		int lo = 0;
+		int hi = limit;
+
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+
+			if(maxLook(mid) <= offset){
+				lo = mid + 1;
+			} else{
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Moves the gap to the given token index.
+	 */
+	private void moveGap(int i){
+		while(gapStart > i){
+			gapStart--;
+			gapEnd--;
+			move(gapStart, gapEnd);
+			starts[gapEnd] = toRelative(starts[gapEnd]);
+			ends[gapEnd] = toRelative(ends[gapEnd]);
+			looks[gapEnd] = toRelative(looks[gapEnd]);
+			maxLooks[gapEnd] = toRelative(maxLooks[gapEnd]);
+		}
+
+		while(gapStart < i){
+			move(gapEnd, gapStart);
+			starts[gapStart] = toAbsolute(starts[gapStart]);
+			ends[gapStart] = toAbsolute(ends[gapStart]);
+			looks[gapStart] = toAbsolute(looks[gapStart]);
+			maxLooks[gapStart] = toAbsolute(maxLooks[gapStart]);
+			gapStart++;
+			gapEnd++;
+		}
+	}
+
+	private void move(int from, int to){
+		types[to] = types[from];
+		starts[to] = starts[from];
+		ends[to] = ends[from];
+		looks[to] = looks[from];
+		maxLooks[to] = maxLooks[from];
+	}
+
+	/**
+	 * Inserts a token at the start of the gap.
+	 */
+	private void insert(TokenType type, int start, int end, int look){
+		if(gapStart == gapEnd){
+			grow();
+		}
+
+		int i = gapStart;
+		types[i] = type;
+		starts[i] = start;
+		ends[i] = end;
+		looks[i] = look;
+		maxLooks[i] = i == 0 ? look : Math.max(maxLooks[i - 1], look);
+		gapStart = i + 1;
+	}
+
+	private void grow(){
+		int size = types.length * 2;
+		int tail = types.length - gapEnd;
+
+		TokenType[] types = new TokenType[size];
+		System.arraycopy(this.types, 0, types, 0, gapStart);
+		System.arraycopy(this.types, gapEnd, types, size - tail, tail);
+		this.types = types;
+
+		this.starts = grow(starts, size, tail);
+		this.ends = grow(ends, size, tail);
+		this.looks = grow(looks, size, tail);
+		this.maxLooks = grow(maxLooks, size, tail);
+		this.gapEnd = size - tail;
+	}
+
+	private int[] grow(int[] array, int size, int tail){
+		int[] tmp = new int[size];
+		System.arraycopy(array, 0, tmp, 0, gapStart);
+		System.arraycopy(array, gapEnd, tmp, size - tail, tail);
+		return tmp;
+	}
+
+	/**
+	 * Updates the maximum lookahead of the tokens after the gap until it is the same as before the edit.
+	 */
+	private void updateMaxLooks(){
+		int max = gapStart == 0 ? 0 : maxLooks[gapStart - 1];
+
+		for(int i = gapEnd; i < types.length; i++){
+			max = Math.max(max, toAbsolute(looks[i]));
+
+			if(toAbsolute(maxLooks[i]) == max){
+				return;
+			}
+
+			maxLooks[i] = toRelative(max);
+		}
+	}
+
+	/**
+	 * The view returned by {@link IncrementalLexer#getTokens()}.
+	 */
+	private final class TokenList extends AbstractList<Token> implements RandomAccess{
+
+		@Override
+		public Token get(int index){
+			if(index < 0 || index >= size()){
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+
+			int start = start(index);
+			int end = end(index);
+			return new Token(text.substring(start, end), type(index), start, end);
+		}
+
+		@Override
+		public int size(){
+			return IncrementalLexer.this.size();
+		}
+
+	}
+
+}
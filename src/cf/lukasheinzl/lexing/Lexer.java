@@ -1,19 +1,46 @@
 package cf.lukasheinzl.lexing;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.regex.Matcher;
 
 /**
- * This class is used to turn a given input string into a list of tokens.
+ * This class is used to turn a given input string into a list of tokens. The input is never copied, the lexer only
+ * moves an offset through it and matches every {@link cf.lukasheinzl.lexing.TokenData TokenData} pattern at that
+ * offset.<br>
+ * A lexer can also read its input from a {@link java.io.Reader Reader} or {@link java.nio.channels.ReadableByteChannel
+ * ReadableByteChannel}. It then only keeps a small buffer that is refilled as tokens are consumed, so the memory used
+ * only depends on the length of the longest token and not on the length of the input.
  * 
  * @author Lukas Heinzl
  *
  */
 public class Lexer{
 
-	private List<TokenData>	data;
-	private String			str;
-	private boolean			trim;
+	private static final Token	EMPTY	= new Token("", TokenType.EMPTY);
+
+	private List<TokenData>		data;
+	private TokenAutomaton		automaton;
+	private CharSequence		input;
+	private int					pos;
+	private int					end;
+	private boolean				trim;
+
+	// only used when reading from a Reader, input is then the buffer and offset the position of its first char
+	private Reader				reader;
+	private Buffer				buffer;
+	private int					offset;
+	private boolean				eof;
+
+	// the last token found by advance()
+	private int					tokenStart;
+	private int					tokenEnd;
+	private TokenType			tokenType;
 
 	/**
 	 * Constructs a new Lexer used to split the input string into tokens.
@@ -26,9 +53,139 @@ public class Lexer{
 	 *            If the string should be trimmed at every {@link #nextToken()} call
 	 */
 	public Lexer(String str, List<TokenData> data, boolean trim){
-		this.str = str;
+		this((CharSequence) str, data, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer used to split the input into tokens. The input should not be modified while it is lexed
+	 * or while any of the returned tokens are in use.
+	 * 
+	 * @param input
+	 *            The input to lex
+	 * @param data
+	 *            The {@link java.util.List List&lt;TokenData&gt;} containing the 'rules' on how to lex this input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(CharSequence input, List<TokenData> data, boolean trim){
+		this(input, 0, input.length(), data, null, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that uses a compiled {@link cf.lukasheinzl.lexing.TokenAutomaton TokenAutomaton} to split
+	 * the input into tokens. It returns the same tokens as a lexer using the TokenData the automaton was compiled from.
+	 * 
+	 * @param input
+	 *            The input to lex
+	 * @param automaton
+	 *            The compiled 'rules' on how to lex this input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(CharSequence input, TokenAutomaton automaton, boolean trim){
+		this(input, 0, input.length(), automaton.getData(), automaton, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that reads its input from the given reader. The tokens are read lazily, the reader is not
+	 * closed by this lexer.
+	 * 
+	 * @param reader
+	 *            The reader to read the input from
+	 * @param data
+	 *            The {@link java.util.List List&lt;TokenData&gt;} containing the 'rules' on how to lex the input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(Reader reader, List<TokenData> data, boolean trim){
+		this(reader, data, null, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that reads its input from the given reader and uses a compiled
+	 * {@link cf.lukasheinzl.lexing.TokenAutomaton TokenAutomaton}. The tokens are read lazily, the reader is not closed
+	 * by this lexer.
+	 * 
+	 * @param reader
+	 *            The reader to read the input from
+	 * @param automaton
+	 *            The compiled 'rules' on how to lex the input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(Reader reader, TokenAutomaton automaton, boolean trim){
+		this(reader, automaton.getData(), automaton, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that reads its input from the given channel. The tokens are read lazily, the channel is not
+	 * closed by this lexer.
+	 * 
+	 * @param channel
+	 *            The channel to read the input from
+	 * @param charset
+	 *            The charset used to decode the input
+	 * @param data
+	 *            The {@link java.util.List List&lt;TokenData&gt;} containing the 'rules' on how to lex the input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(ReadableByteChannel channel, Charset charset, List<TokenData> data, boolean trim){
+		this(Channels.newReader(channel, charset.newDecoder(), -1), data, null, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that reads its input from the given channel and uses a compiled
+	 * {@link cf.lukasheinzl.lexing.TokenAutomaton TokenAutomaton}. The tokens are read lazily, the channel is not
+	 * closed by this lexer.
+	 * 
+	 * @param channel
+	 *            The channel to read the input from
+	 * @param charset
+	 *            The charset used to decode the input
+	 * @param automaton
+	 *            The compiled 'rules' on how to lex the input
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	public Lexer(ReadableByteChannel channel, Charset charset, TokenAutomaton automaton, boolean trim){
+		this(Channels.newReader(channel, charset.newDecoder(), -1), automaton.getData(), automaton, trim);
+	}
+
+	/**
+	 * Constructs a new Lexer that reads its input from the given reader.
+	 */
+	private Lexer(Reader reader, List<TokenData> data, TokenAutomaton automaton, boolean trim){
+		this(new Buffer(), 0, 0, data, automaton, trim);
+		this.reader = reader;
+		this.buffer = (Buffer) input;
+		this.eof = false;
+	}
+
+	/**
+	 * Constructs a new Lexer that only lexes the given region of the input.
+	 * 
+	 * @param input
+	 *            The input to lex
+	 * @param start
+	 *            The offset to start lexing at
+	 * @param end
+	 *            The offset to stop lexing at
+	 * @param data
+	 *            The 'rules' on how to lex this input
+	 * @param automaton
+	 *            The compiled data or null if the patterns should be tried one after another
+	 * @param trim
+	 *            If the input should be trimmed at every {@link #nextToken()} call
+	 */
+	Lexer(CharSequence input, int start, int end, List<TokenData> data, TokenAutomaton automaton, boolean trim){
+		this.input = input;
+		this.pos = start;
+		this.end = end;
 		this.data = data;
+		this.automaton = automaton;
 		this.trim = trim;
+		this.eof = true;
 	}
 
 	/**
@@ -38,31 +195,32 @@ public class Lexer{
 	 * @return The next token of the input string
 	 */
 	public Token nextToken(){
-		if(trim){
-			str = str.trim();
+		if(!advance()){
+			return EMPTY;
 		}
 
-		if(str.isEmpty()){
-			return new Token("", TokenType.EMPTY);
+		if(reader == null){
+			return new Token(input, tokenStart, tokenEnd, tokenType);
 		}
 
-		for(TokenData d: data){
-			Matcher m = d.getPattern().matcher(str);
-
-			if(m.find()){
-				String tok = m.group();
-
-				if(trim){
-					tok = tok.trim();
-				}
-
-				str = m.replaceFirst("");
+		// the buffer is reused, so the value has to be copied
+		return new Token(input.subSequence(tokenStart, tokenEnd).toString(), tokenType, offset + tokenStart,
+				offset + tokenEnd);
+	}
 
-				return new Token(tok, d.getType());
+	/**
+	 * Passes all remaining tokens to the given visitor. Unlike {@link #nextToken()} this does not create any objects
+	 * per token.
+	 * 
+	 * @param visitor
+	 *            The visitor to call for every token, it can stop the lexer by returning false
+	 */
+	public void forEach(TokenVisitor visitor){
+		while(advance()){
+			if(!visitor.visit(tokenType, input, tokenStart, tokenEnd)){
+				return;
 			}
 		}
-
-		throw new IllegalStateException("Could not parse: " + str);
 	}
 
 	/**
@@ -72,7 +230,203 @@ public class Lexer{
 	 * @return If there are still tokens
 	 */
 	public boolean hasNextToken(){
-		return !str.isEmpty();
+		while(reader != null && pos >= end && !eof){
+			fill();
+
+			if(trim){
+				trim();
+			}
+		}
+
+		return pos < end;
+	}
+
+	/**
+	 * Returns how far the lexer had to look at the input to find the last token. Only works if the lexer uses a
+	 * {@link cf.lukasheinzl.lexing.TokenAutomaton TokenAutomaton}.
+	 * 
+	 * @return The offset after the last char looked at or {@link java.lang.Integer#MAX_VALUE MAX_VALUE} if the token
+	 *         could depend on the end of the input
+	 */
+	int lookahead(){
+		return automaton.lookahead(input, tokenStart, end);
+	}
+
+	/**
+	 * Lexes the next token and stores its type and bounds.
+	 * 
+	 * @return False if there is nothing left to lex
+	 */
+	private boolean advance(){
+		while(true){
+			if(trim){
+				trim();
+			}
+
+			if(pos >= end){
+				if(eof){
+					return false;
+				}
+
+				fill();
+				continue;
+			}
+
+			long m = match();
+
+			if(m == TokenAutomaton.MORE){
+				fill();
+				continue;
+			}
+
+			if(m == -1){
+				throw new IllegalStateException("Could not parse: " + input.subSequence(pos, end));
+			}
+
+			int start = pos;
+			int stop = (int) m;
+			pos = stop;
+
+			if(trim){
+				while(start < stop && input.charAt(start) <= ' '){
+					start++;
+				}
+
+				while(stop > start && input.charAt(stop - 1) <= ' '){
+					stop--;
+				}
+			}
+
+			tokenStart = start;
+			tokenEnd = stop;
+			tokenType = data.get((int) (m >>> 32)).getType();
+			return true;
+		}
+	}
+
+	/**
+	 * Finds the first TokenData matching at the current offset.
+	 * 
+	 * @return The index of the TokenData in the upper and the end of the match in the lower 32 bits, -1 if nothing
+	 *         matches or {@link cf.lukasheinzl.lexing.TokenAutomaton#MORE MORE} if more input is needed
+	 */
+	private long match(){
+		if(automaton != null){
+			return automaton.match(input, pos, end, eof);
+		}
+
+		for(int i = 0; i < data.size(); i++){
+			Matcher m = data.get(i).getMatcher(input);
+			m.region(pos, end);
+			boolean found = m.lookingAt();
+			boolean hitEnd = m.hitEnd();
+			int matchEnd = found ? m.end() : -1;
+
+			// the cached matcher would keep the input alive until the thread uses it again
+			m.reset("");
+
+			if(!eof && hitEnd){
+				return TokenAutomaton.MORE;
+			}
+
+			if(found){
+				return (long) i << 32 | matchEnd;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Drops the already lexed part of the buffer and reads more input into it.
+	 */
+	private void fill(){
+		if(pos > 0){
+			buffer.drop(pos);
+			offset += pos;
+			pos = 0;
+		}
+
+		try{
+			eof = !buffer.read(reader);
+		} catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+
+		end = buffer.length();
+	}
+
+	/**
+	 * Moves the offset past any leading white-space and the end before any trailing white-space, like
+	 * {@link java.lang.String#trim()} does.
+	 */
+	private void trim(){
+		while(pos < end && input.charAt(pos) <= ' '){
+			pos++;
+		}
+
+		while(end > pos && input.charAt(end - 1) <= ' '){
+			end--;
+		}
+	}
+
+	/**
+	 * The buffer used when reading from a {@link java.io.Reader Reader}. It only grows if a single token does not fit.
+	 */
+	private static final class Buffer implements CharSequence{
+
+		private char[]	chars	= new char[8192];
+		private int		length;
+
+		/**
+		 * Removes the given number of chars from the start of this buffer.
+		 */
+		private void drop(int count){
+			System.arraycopy(chars, count, chars, 0, length - count);
+			length -= count;
+		}
+
+		/**
+		 * Reads more chars from the reader.
+		 * 
+		 * @return False if the end of the input was reached
+		 */
+		private boolean read(Reader reader) throws IOException{
+			if(length == chars.length){
+				char[] tmp = new char[chars.length * 2];
+				System.arraycopy(chars, 0, tmp, 0, length);
+				chars = tmp;
+			}
+
+			int n = reader.read(chars, length, chars.length - length);
+			if(n < 0){
+				return false;
+			}
+
+			length += n;
+			return true;
+		}
+
+		@Override
+		public int length(){
+			return length;
+		}
+
+		@Override
+		public char charAt(int index){
+			return chars[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end){
+			return new String(chars, start, end - start);
+		}
+
+		@Override
+		public String toString(){
+			return new String(chars, 0, length);
+		}
+
 	}
 
 }
@@ -0,0 +1,226 @@
+package cf.lukasheinzl.lexing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class is used to lex large inputs on multiple threads. The input is split into chunks at new lines and every
+ * chunk is lexed on its own. When the chunks are merged, the tokens of a chunk are only used from the first token where
+ * the previous chunk ends, everything in between (e.g. a token that spans the chunk boundary) is lexed again. Because a
+ * lexer only depends on its position in the input, the result is always the same as the one of a single
+ * {@link cf.lukasheinzl.lexing.Lexer Lexer}.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class ParallelLexer{
+
+	// inputs smaller than this are lexed on the calling thread
+	private static final int	MIN_CHUNK_SIZE	= 1 << 16;
+
+	private List<TokenData>		data;
+	private TokenAutomaton		automaton;
+	private boolean				trim;
+
+	/**
+	 * Constructs a new ParallelLexer.
+	 * 
+	 * @param data
+	 *            The {@link java.util.List List&lt;TokenData&gt;} containing the 'rules' on how to lex the input
+	 * @param trim
+	 *            If white-space around the tokens should be skipped, see
+	 *            {@link cf.lukasheinzl.lexing.Lexer#Lexer(CharSequence, List, boolean) Lexer}
+	 */
+	public ParallelLexer(List<TokenData> data, boolean trim){
+		this.data = data;
+		this.trim = trim;
+	}
+
+	/**
+	 * Constructs a new ParallelLexer that uses a compiled {@link cf.lukasheinzl.lexing.TokenAutomaton TokenAutomaton}.
+	 * 
+	 * @param automaton
+	 *            The compiled 'rules' on how to lex the input
+	 * @param trim
+	 *            If white-space around the tokens should be skipped, see
+	 *            {@link cf.lukasheinzl.lexing.Lexer#Lexer(CharSequence, TokenAutomaton, boolean) Lexer}
+	 */
+	public ParallelLexer(TokenAutomaton automaton, boolean trim){
+		this.data = automaton.getData();
+		this.automaton = automaton;
+		this.trim = trim;
+	}
+
+	/**
+	 * Lexes the whole input using the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+	 * 
+	 * @param input
+	 *            The input to lex, it should not be modified while it is lexed or while any of the tokens are in use
+	 * @return All tokens of the input in order
+	 */
+	public List<Token> lex(CharSequence input){
+		return lex(input, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Lexes the whole input using the given pool.
+	 * 
+	 * @param input
+	 *            The input to lex, it should not be modified while it is lexed or while any of the tokens are in use
+	 * @param pool
+	 *            The pool to lex the chunks on
+	 * @return All tokens of the input in order
+	 */
+	public List<Token> lex(CharSequence input, ForkJoinPool pool){
+		int[] bounds = split(input, pool.getParallelism());
+		List<ForkJoinTask<List<Token>>> tasks = new ArrayList<>();
+
+		for(int i = 1; i < bounds.length - 1; i++){
+			int start = bounds[i];
+			int limit = bounds[i + 1];
+			tasks.add(pool.submit(() -> lexChunk(input, start, limit)));
+		}
+
+		List<Token> tokens = lexChunk(input, 0, bounds[1]);
+		int next = tokens.isEmpty() ? nextStart(input, 0) : nextStart(input, tokens.get(tokens.size() - 1).getEnd());
+
+		for(ForkJoinTask<List<Token>> task: tasks){
+			next = merge(input, tokens, task.join(), next);
+		}
+
+		if(next < input.length()){
+			Lexer l = new Lexer(input, next, input.length(), data, automaton, trim);
+
+			for(Token t = l.nextToken(); t.getType() != TokenType.EMPTY; t = l.nextToken()){
+				tokens.add(t);
+			}
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Appends the tokens of a chunk to the result, starting at the first token that begins where the result ends. Tokens
+	 * before that are lexed again.
+	 * 
+	 * @return The offset where the next token after the result starts
+	 */
+	private int merge(CharSequence input, List<Token> tokens, List<Token> chunk, int next){
+		Lexer l = null;
+
+		while(true){
+			int i = firstAtOrAfter(chunk, next);
+
+			if(i == chunk.size()){
+				return next;
+			}
+
+			if(chunk.get(i).getStart() == next){
+				tokens.addAll(chunk.subList(i, chunk.size()));
+				return nextStart(input, chunk.get(chunk.size() - 1).getEnd());
+			}
+
+			if(l == null){
+				l = new Lexer(input, next, input.length(), data, automaton, trim);
+			}
+
+			Token t = l.nextToken();
+			if(t.getType() == TokenType.EMPTY){
+				return input.length();
+			}
+
+			tokens.add(t);
+			next = nextStart(input, t.getEnd());
+		}
+	}
+
+	/**
+	 * Lexes all tokens that start before the limit. A token may end after the limit. If the chunk does not start at a
+	 * token boundary it might not be lexable, it then just ends early and is fixed when merging.
+	 */
+	private List<Token> lexChunk(CharSequence input, int start, int limit){
+		List<Token> tokens = new ArrayList<>();
+		Lexer l = new Lexer(input, start, input.length(), data, automaton, trim);
+
+		try{
+			while(l.hasNextToken()){
+				Token t = l.nextToken();
+
+				if(t.getType() == TokenType.EMPTY || t.getStart() >= limit){
+					break;
+				}
+
+				tokens.add(t);
+			}
+		} catch(IllegalStateException e){
+			// the input before this position is lexed again when merging
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Returns the offset where a lexer positioned at the given offset starts its next token.
+	 */
+	private int nextStart(CharSequence input, int pos){
+		if(trim){
+			while(pos < input.length() && input.charAt(pos) <= ' '){
+				pos++;
+			}
+		}
+
+		return pos;
+	}
+
+	/**
+	 * Returns the index of the first token that starts at or after the given offset.
+	 */
+	private static int firstAtOrAfter(List<Token> tokens, int pos){
+		int lo = 0;
+		int hi = tokens.size();
+
+		while(lo < hi){
+			int mid = (lo + hi) >>> 1;
+
+			if(tokens.get(mid).getStart() < pos){
+				lo = mid + 1;
+			} else{
+				hi = mid;
+			}
+		}
+
+		return lo;
+	}
+
+	/**
+	 * Splits the input into chunks that end after a new line.
+	 * 
+	 * @return The start offsets of the chunks followed by the length of the input
+	 */
+	private static int[] split(CharSequence input, int parallelism){
+		int count = Math.max(1, Math.min(parallelism * 4, input.length() / MIN_CHUNK_SIZE));
+		int[] bounds = new int[count + 1];
+		int n = 1;
+
+		for(int i = 1; i < count; i++){
+			int pos = Math.max((int) ((long) input.length() * i / count), bounds[n - 1] + 1);
+
+			while(pos < input.length() && input.charAt(pos - 1) != '\n'){
+				pos++;
+			}
+
+			if(pos < input.length()){
+				bounds[n++] = pos;
+			}
+		}
+
+		bounds[n++] = input.length();
+
+		int[] tmp = new int[n];
+		System.arraycopy(bounds, 0, tmp, 0, n);
+		return tmp;
+	}
+
+}
@@ -1,15 +1,20 @@
 package cf.lukasheinzl.lexing;
 
 /**
- * This class represents a string token. It consists of the string itself and the corresponding token type.
+ * This class represents a string token. It consists of the string itself and the corresponding token type. Tokens
+ * created by a {@link cf.lukasheinzl.lexing.Lexer Lexer} only store their start and end offset in the lexed input, the
+ * string value is created the first time it is requested.
  * 
  * @author Lukas Heinzl
  *
  */
 public class Token{
 
-	private String		value;
-	private TokenType	type;
+	private CharSequence	source;
+	private int				start;
+	private int				end;
+	private String			value;
+	private TokenType		type;
 
 	/**
 	 * Constructs a new Token with the given value and type.
@@ -22,6 +27,48 @@ public class Token{
 	public Token(String value, TokenType type){
 		this.value = value;
 		this.type = type;
+		this.start = -1;
+		this.end = -1;
+	}
+
+	/**
+	 * Constructs a new Token that spans the given region of the source. The source should not be modified as long as
+	 * this token is in use.
+	 * 
+	 * @param source
+	 *            The character sequence this token was lexed from
+	 * @param start
+	 *            The offset of the first character of this token (inclusive)
+	 * @param end
+	 *            The offset after the last character of this token (exclusive)
+	 * @param type
+	 *            The type of this token
+	 */
+	public Token(CharSequence source, int start, int end, TokenType type){
+		this.source = source;
+		this.start = start;
+		this.end = end;
+		this.type = type;
+	}
+
+	/**
+	 * Constructs a new Token with the given value, type and offsets. This is used by lexers whose input is not kept in
+	 * memory.
+	 * 
+	 * @param value
+	 *            The string value of this token
+	 * @param type
+	 *            The type of this token
+	 * @param start
+	 *            The offset of the first character of this token
+	 * @param end
+	 *            The offset after the last character of this token
+	 */
+	Token(String value, TokenType type, int start, int end){
+		this.value = value;
+		this.type = type;
+		this.start = start;
+		this.end = end;
 	}
 
 	/**
@@ -30,6 +77,10 @@ public class Token{
 	 * @return The string value
 	 */
 	public String getValue(){
+		if(value == null){
+			value = source.subSequence(start, end).toString();
+		}
+
 		return value;
 	}
 
@@ -42,9 +93,27 @@ public class Token{
 		return type;
 	}
 
+	/**
+	 * Returns the offset of the first character of this token in the lexed input
+	 * 
+	 * @return The start offset or -1 if this token was not created by a lexer
+	 */
+	public int getStart(){
+		return start;
+	}
+
+	/**
+	 * Returns the offset after the last character of this token in the lexed input
+	 * 
+	 * @return The end offset or -1 if this token was not created by a lexer
+	 */
+	public int getEnd(){
+		return end;
+	}
+
 	@Override
 	public String toString(){
-		return "{[" + type + "] " + value + "}";
+		return "{[" + type + "] " + getValue() + "}";
 	}
 
 	@Override
@@ -55,12 +124,12 @@ public class Token{
 
 		Token t = (Token) other;
 
-		return type == t.type && value.trim().equals(t.value.trim());
+		return type == t.type && getValue().trim().equals(t.getValue().trim());
 	}
 
 	@Override
 	public int hashCode(){
-		return type.hashCode() * 2 + value.hashCode() * 5;
+		return type.hashCode() * 2 + getValue().hashCode() * 5;
 	}
 
 }
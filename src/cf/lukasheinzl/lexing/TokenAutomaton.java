@@ -0,0 +1,774 @@
+package cf.lukasheinzl.lexing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * This class combines the patterns of a {@link java.util.List List&lt;TokenData&gt;} into one deterministic automaton.
+ * A {@link cf.lukasheinzl.lexing.Lexer Lexer} using an automaton scans every character only once to find the first
+ * {@link cf.lukasheinzl.lexing.TokenData TokenData} (in list order) that matches, instead of trying each pattern one
+ * after another.<br>
+ * Patterns using features the automaton can not express (back-references, look-arounds, reluctant quantifiers, flags
+ * and so on) are still matched with {@link java.util.regex}, so the result is always the same as trying the patterns in
+ * order.<br>
+ * Instances are immutable and can be shared between lexers and threads.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public final class TokenAutomaton{
+
+	// the maximum number of DFA states before the automaton gives up and falls back to java.util.regex
+	private static final int	MAX_STATES		= 10000;
+
+	// the length of a pattern can be taken from the automaton
+	private static final int	KIND_SINGLE		= 0;
+	private static final int	KIND_FIXED		= 1;
+	private static final int	KIND_LONGEST	= 2;
+
+	// the length of a pattern has to be taken from java.util.regex
+	private static final int	KIND_OTHER		= 3;
+
+	private static final int	DEAD			= -1;
+
+	// returned by match if more input is needed to decide which TokenData matches
+	static final long			MORE			= -2;
+
+	private List<TokenData>		data;
+
+	// patterns the automaton can not express, they are matched with java.util.regex
+	private boolean[]			fallback;
+
+	// patterns where java.util.regex returns the longest match, so the automaton can determine the length
+	private boolean[]			exactLength;
+
+	private char[]				classOf;
+	private int					classCount;
+	private int[]				transitions;
+	private int[][]				accepts;
+	private int[]				minLive;
+
+	private TokenAutomaton(List<TokenData> data){
+		this.data = data;
+		this.fallback = new boolean[data.size()];
+		this.exactLength = new boolean[data.size()];
+	}
+
+	/**
+	 * Compiles the given TokenData into one automaton. The list should not be modified afterwards.
+	 * 
+	 * @param data
+	 *            The 'rules' on how to lex, in order of priority
+	 * @return The compiled automaton
+	 */
+	public static TokenAutomaton compile(List<TokenData> data){
+		TokenAutomaton a = new TokenAutomaton(data);
+		List<State> nfa = new ArrayList<>();
+		State start = new State(nfa, -1);
+
+		for(int i = 0; i < data.size(); i++){
+			TokenData d = data.get(i);
+			Fragment f = d.getPattern().flags() == 0 ? new PatternParser(d.getPattern().pattern(), nfa, i).parse() : null;
+
+			if(f == null){
+				a.fallback[i] = true;
+				continue;
+			}
+
+			a.exactLength[i] = f.kind != KIND_OTHER;
+			start.eps.add(f.start);
+			f.end.accept = true;
+		}
+
+		if(!a.build(nfa, start)){
+			Arrays.fill(a.fallback, true);
+			a.build(nfa, new State(nfa, -1));
+		}
+
+		return a;
+	}
+
+	/**
+	 * Returns the TokenData this automaton was compiled from
+	 * 
+	 * @return The TokenData
+	 */
+	public List<TokenData> getData(){
+		return data;
+	}
+
+	/**
+	 * Finds the first TokenData (in list order) matching the input at the given offset.
+	 * 
+	 * @param input
+	 *            The input to match
+	 * @param start
+	 *            The offset to match at
+	 * @param end
+	 *            The end of the region that may be matched
+	 * @param complete
+	 *            If the input ends at the end of the region
+	 * @return The index of the matching TokenData in the upper and the end of the match in the lower 32 bits, -1 if no
+	 *         TokenData matches or -2 if the result could change with more input
+	 */
+	long match(CharSequence input, int start, int end, boolean complete){
+		int best = data.size();
+		int bestEnd = -1;
+		int state = 0;
+		int i = start;
+
+		while(true){
+			int[] acc = accepts[state];
+
+			if(acc.length > 0){
+				if(acc[0] < best){
+					best = acc[0];
+					bestEnd = i;
+				} else if(Arrays.binarySearch(acc, best) >= 0){
+					bestEnd = i;
+				}
+			}
+
+			if(minLive[state] > best){
+				break;
+			}
+
+			if(i >= end){
+				if(!complete){
+					return MORE;
+				}
+
+				break;
+			}
+
+			char c = input.charAt(i);
+			if(Character.isSurrogate(c)){
+				// java.util.regex matches code points, not chars
+				return matchRegex(input, start, end, complete, 0, data.size(), true);
+			}
+
+			state = transitions[state * classCount + classOf[c]];
+			if(state == DEAD){
+				break;
+			}
+
+			i++;
+		}
+
+		long m = matchRegex(input, start, end, complete, 0, best, false);
+		if(m != -1 || best == data.size()){
+			return m;
+		}
+
+		if(exactLength[best]){
+			return (long) best << 32 | bestEnd;
+		}
+
+		return matchRegex(input, start, end, complete, best, best + 1, true);
+	}
+
+	/**
+	 * Returns how far {@link #match(CharSequence, int, int, boolean)} looks at the input to find the token at the given
+	 * offset. The token only depends on the chars before the returned offset.
+	 * 
+	 * @param input
+	 *            The input to match
+	 * @param start
+	 *            The offset to match at
+	 * @param end
+	 *            The end of the region that may be matched
+	 * @return The offset after the last char looked at or {@link java.lang.Integer#MAX_VALUE MAX_VALUE} if the token
+	 *         could depend on the end of the region or on a pattern that is matched with java.util.regex
+	 */
+	int lookahead(CharSequence input, int start, int end){
+		int best = data.size();
+		int state = 0;
+		int i = start;
+		int look;
+
+		while(true){
+			int[] acc = accepts[state];
+
+			if(acc.length > 0 && acc[0] < best){
+				best = acc[0];
+			}
+
+			if(minLive[state] > best){
+				look = i;
+				break;
+			}
+
+			if(i >= end || Character.isSurrogate(input.charAt(i))){
+				return Integer.MAX_VALUE;
+			}
+
+			state = transitions[state * classCount + classOf[input.charAt(i)]];
+			i++;
+
+			if(state == DEAD){
+				look = i;
+				break;
+			}
+		}
+
+		for(int j = 0; j <= best && j < data.size(); j++){
+			if(fallback[j]){
+				return Integer.MAX_VALUE;
+			}
+		}
+
+		return look;
+	}
+
+	/**
+	 * Tries the patterns in the given index range with {@link java.util.regex}, either all of them or only the ones
+	 * the automaton can not express.
+	 */
+	private long matchRegex(CharSequence input, int start, int end, boolean complete, int from, int to, boolean all){
+		for(int i = from; i < to; i++){
+			if(!all && !fallback[i]){
+				continue;
+			}
+
+			Matcher m = data.get(i).getMatcher(input);
+			m.region(start, end);
+			boolean found = m.lookingAt();
+			boolean hitEnd = m.hitEnd();
+			int matchEnd = found ? m.end() : -1;
+
+			// the cached matcher would keep the input alive until the thread uses it again
+			m.reset("");
+
+			if(!complete && hitEnd){
+				return MORE;
+			}
+
+			if(found){
+				return (long) i << 32 | matchEnd;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Turns the NFA into a DFA using the subset construction.
+	 * 
+	 * @return False if the DFA would get too big
+	 */
+	private boolean build(List<State> nfa, State start){
+		// split the chars into classes that behave the same in every transition
+		BitSet bounds = new BitSet(0x10001);
+		bounds.set(0);
+		for(State s: nfa){
+			if(s.set != null){
+				for(int j = 0; j < s.set.length; j += 2){
+					bounds.set(s.set[j]);
+					bounds.set(s.set[j + 1] + 1);
+				}
+			}
+		}
+
+		classOf = new char[0x10000];
+		classCount = 0;
+		for(int c = 0; c < 0x10000; c++){
+			if(bounds.get(c) && c > 0){
+				classCount++;
+			}
+
+			classOf[c] = (char) classCount;
+		}
+		classCount++;
+
+		int[][] stateClasses = new int[nfa.size()][];
+		for(State s: nfa){
+			if(s.set != null){
+				BitSet bs = new BitSet(classCount);
+				for(int j = 0; j < s.set.length; j += 2){
+					bs.set(classOf[s.set[j]], classOf[s.set[j + 1]] + 1);
+				}
+				stateClasses[s.id] = bs.stream().toArray();
+			}
+		}
+
+		Map<BitSet, Integer> ids = new HashMap<>();
+		List<BitSet> dfa = new ArrayList<>();
+		List<int[]> rows = new ArrayList<>();
+
+		BitSet first = new BitSet(nfa.size());
+		closure(start, first);
+		ids.put(first, 0);
+		dfa.add(first);
+
+		BitSet[] buckets = new BitSet[classCount];
+		for(int d = 0; d < dfa.size(); d++){
+			BitSet set = dfa.get(d);
+			int[] row = new int[classCount];
+			Arrays.fill(row, DEAD);
+
+			for(int n = set.nextSetBit(0); n >= 0; n = set.nextSetBit(n + 1)){
+				State s = nfa.get(n);
+				if(s.set == null){
+					continue;
+				}
+
+				for(int c: stateClasses[n]){
+					if(buckets[c] == null){
+						buckets[c] = new BitSet(nfa.size());
+					}
+
+					closure(s.next, buckets[c]);
+				}
+			}
+
+			for(int c = 0; c < classCount; c++){
+				if(buckets[c] == null){
+					continue;
+				}
+
+				Integer id = ids.get(buckets[c]);
+				if(id == null){
+					if(dfa.size() >= MAX_STATES){
+						return false;
+					}
+
+					id = dfa.size();
+					ids.put(buckets[c], id);
+					dfa.add(buckets[c]);
+				}
+
+				row[c] = id;
+				buckets[c] = null;
+			}
+
+			rows.add(row);
+		}
+
+		transitions = new int[dfa.size() * classCount];
+		accepts = new int[dfa.size()][];
+		minLive = new int[dfa.size()];
+
+		for(int d = 0; d < dfa.size(); d++){
+			System.arraycopy(rows.get(d), 0, transitions, d * classCount, classCount);
+
+			BitSet acc = new BitSet();
+			int live = Integer.MAX_VALUE;
+			BitSet set = dfa.get(d);
+
+			for(int n = set.nextSetBit(0); n >= 0; n = set.nextSetBit(n + 1)){
+				State s = nfa.get(n);
+
+				if(s.accept){
+					acc.set(s.pattern);
+				}
+
+				if(s.set != null){
+					live = Math.min(live, s.pattern);
+				}
+			}
+
+			accepts[d] = acc.stream().toArray();
+			minLive[d] = live;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Adds the given state and all states reachable through epsilon transitions to the set.
+	 */
+	private static void closure(State s, BitSet set){
+		List<State> stack = new ArrayList<>();
+		stack.add(s);
+
+		while(!stack.isEmpty()){
+			State n = stack.remove(stack.size() - 1);
+
+			if(set.get(n.id)){
+				continue;
+			}
+
+			set.set(n.id);
+			stack.addAll(n.eps);
+		}
+	}
+
+	/**
+	 * A state of the NFA. It has at most one transition consuming a char and any number of epsilon transitions.
+	 */
+	private static final class State{
+
+		private int			id;
+		private int			pattern;
+		private int[]		set;
+		private State		next;
+		private List<State>	eps	= new ArrayList<>(2);
+		private boolean		accept;
+
+		private State(List<State> nfa, int pattern){
+			this.id = nfa.size();
+			this.pattern = pattern;
+			nfa.add(this);
+		}
+
+	}
+
+	/**
+	 * A part of the NFA with one entry and one exit state.
+	 */
+	private static final class Fragment{
+
+		private State	start;
+		private State	end;
+		private int		kind;
+
+		private Fragment(State start, State end, int kind){
+			this.start = start;
+			this.end = end;
+			this.kind = kind;
+		}
+
+	}
+
+	/**
+	 * Parses the subset of the regular expression syntax the automaton supports into NFA fragments. Every method returns
+	 * null if the pattern uses anything else.
+	 */
+	private static final class PatternParser{
+
+		private static final int[]	ANY		= { 0, 0xFFFF };
+		private static final int[]	DOT		= { 0, '\n' - 1, '\n' + 1, '\r' - 1, '\r' + 1, 0x84, 0x86, 0x2027, 0x202A,
+				0xFFFF };
+		private static final int[]	DIGIT	= { '0', '9' };
+		private static final int[]	SPACE	= { '\t', '\r', ' ', ' ' };
+		private static final int[]	WORD	= { '0', '9', 'A', 'Z', '_', '_', 'a', 'z' };
+
+		private String				p;
+		private int					pos;
+		private List<State>			nfa;
+		private int					pattern;
+
+		private PatternParser(String p, List<State> nfa, int pattern){
+			this.p = p;
+			this.nfa = nfa;
+			this.pattern = pattern;
+		}
+
+		private Fragment parse(){
+			if(p.startsWith("^")){
+				pos++;
+			}
+
+			Fragment f = parseAlternation();
+			return f != null && pos == p.length() ? f : null;
+		}
+
+		private Fragment parseAlternation(){
+			Fragment f = parseConcatenation();
+
+			if(f == null || pos >= p.length() || p.charAt(pos) != '|'){
+				return f;
+			}
+
+			State start = new State(nfa, pattern);
+			State end = new State(nfa, pattern);
+			start.eps.add(f.start);
+			f.end.eps.add(end);
+
+			while(f != null && pos < p.length() && p.charAt(pos) == '|'){
+				pos++;
+				f = parseConcatenation();
+
+				if(f != null){
+					start.eps.add(f.start);
+					f.end.eps.add(end);
+				}
+			}
+
+			return f == null ? null : new Fragment(start, end, KIND_OTHER);
+		}
+
+		private Fragment parseConcatenation(){
+			State start = new State(nfa, pattern);
+			State end = start;
+			int kind = KIND_FIXED;
+			boolean single = false;
+			int count = 0;
+
+			while(pos < p.length() && p.charAt(pos) != '|' && p.charAt(pos) != ')'){
+				Fragment f = parseRepetition();
+				if(f == null){
+					return null;
+				}
+
+				// only a fixed prefix followed by one greedy repetition is guaranteed to be the longest match
+				if(kind != KIND_FIXED){
+					kind = KIND_OTHER;
+				} else if(f.kind != KIND_SINGLE){
+					kind = f.kind;
+				}
+
+				end.eps.add(f.start);
+				end = f.end;
+				single = ++count == 1 && f.kind == KIND_SINGLE;
+			}
+
+			return new Fragment(start, end, single ? KIND_SINGLE : kind);
+		}
+
+		private Fragment parseRepetition(){
+			Fragment f = parseAtom();
+
+			if(f == null || pos >= p.length()){
+				return f;
+			}
+
+			char q = p.charAt(pos);
+			if(q == '{'){
+				return null;
+			}
+
+			if(q != '*' && q != '+' && q != '?'){
+				return f;
+			}
+
+			pos++;
+			if(pos < p.length() && (p.charAt(pos) == '?' || p.charAt(pos) == '+')){
+				// reluctant and possessive quantifiers
+				return null;
+			}
+
+			State start = new State(nfa, pattern);
+			State end = new State(nfa, pattern);
+			start.eps.add(f.start);
+			f.end.eps.add(end);
+
+			if(q != '+'){
+				start.eps.add(end);
+			}
+
+			if(q != '?'){
+				f.end.eps.add(f.start);
+			}
+
+			return new Fragment(start, end, f.kind == KIND_SINGLE ? KIND_LONGEST : KIND_OTHER);
+		}
+
+		private Fragment parseAtom(){
+			char c = p.charAt(pos++);
+
+			switch(c){
+				case '(':
+					if(p.startsWith("?:", pos)){
+						pos += 2;
+					} else if(p.startsWith("?", pos)){
+						return null;
+					}
+
+					Fragment f = parseAlternation();
+					if(f == null || pos >= p.length() || p.charAt(pos) != ')'){
+						return null;
+					}
+
+					pos++;
+					return f;
+				case '[':
+					return chars(parseClass());
+				case '.':
+					return chars(DOT);
+				case '\\':
+					return chars(parseEscape());
+				case '^':
+				case '$':
+				case '{':
+				case '}':
+				case ']':
+				case '*':
+				case '+':
+				case '?':
+					return null;
+				default:
+					return chars(new int[]{ c, c });
+			}
+		}
+
+		private int[] parseClass(){
+			boolean negate = p.startsWith("^", pos);
+			if(negate){
+				pos++;
+			}
+
+			int[] set = new int[0];
+			boolean first = true;
+
+			while(pos < p.length()){
+				char c = p.charAt(pos);
+
+				if(c == ']' && !first){
+					pos++;
+					return negate ? complement(set) : set;
+				}
+
+				if(c == '[' || c == ']' || p.startsWith("&&", pos)){
+					return null;
+				}
+
+				int[] item = parseClassChar();
+				if(item == null){
+					return null;
+				}
+
+				boolean range = p.startsWith("-", pos) && pos + 1 < p.length() && p.charAt(pos + 1) != ']';
+				if(range && (item.length != 2 || item[0] != item[1])){
+					return null;
+				}
+
+				if(range){
+					pos++;
+					int[] to = parseClassChar();
+					if(to == null || to.length != 2 || to[0] != to[1] || to[0] < item[0]){
+						return null;
+					}
+
+					item = new int[]{ item[0], to[0] };
+				}
+
+				set = union(set, item);
+				first = false;
+			}
+
+			return null;
+		}
+
+		private int[] parseClassChar(){
+			char c = p.charAt(pos++);
+
+			if(c == '\\'){
+				return parseEscape();
+			}
+
+			return new int[]{ c, c };
+		}
+
+		private int[] parseEscape(){
+			if(pos >= p.length()){
+				return null;
+			}
+
+			char c = p.charAt(pos++);
+
+			switch(c){
+				case 't':
+					return new int[]{ '\t', '\t' };
+				case 'n':
+					return new int[]{ '\n', '\n' };
+				case 'r':
+					return new int[]{ '\r', '\r' };
+				case 'f':
+					return new int[]{ '\f', '\f' };
+				case 'a':
+					return new int[]{ 7, 7 };
+				case 'e':
+					return new int[]{ 27, 27 };
+				case 'd':
+					return DIGIT;
+				case 'D':
+					return complement(DIGIT);
+				case 's':
+					return SPACE;
+				case 'S':
+					return complement(SPACE);
+				case 'w':
+					return WORD;
+				case 'W':
+					return complement(WORD);
+				case 'x':
+					return parseHex(2);
+				case 'u':
+					return parseHex(4);
+				default:
+					if(Character.isLetterOrDigit(c)){
+						return null;
+					}
+
+					return new int[]{ c, c };
+			}
+		}
+
+		private int[] parseHex(int digits){
+			if(pos + digits > p.length()){
+				return null;
+			}
+
+			try{
+				int c = Integer.parseInt(p.substring(pos, pos + digits), 16);
+				pos += digits;
+				return new int[]{ c, c };
+			} catch(NumberFormatException e){
+				return null;
+			}
+		}
+
+		private Fragment chars(int[] set){
+			if(set == null){
+				return null;
+			}
+
+			State start = new State(nfa, pattern);
+			State end = new State(nfa, pattern);
+			start.set = set;
+			start.next = end;
+
+			return new Fragment(start, end, KIND_SINGLE);
+		}
+
+		/**
+		 * Returns the union of two sorted lists of inclusive char ranges.
+		 */
+		private static int[] union(int[] a, int[] b){
+			BitSet bs = new BitSet(0x10000);
+
+			for(int[] set: new int[][]{ a, b }){
+				for(int i = 0; i < set.length; i += 2){
+					bs.set(set[i], set[i + 1] + 1);
+				}
+			}
+
+			return toRanges(bs);
+		}
+
+		/**
+		 * Returns all chars not contained in the sorted list of inclusive char ranges.
+		 */
+		private static int[] complement(int[] set){
+			BitSet bs = new BitSet(0x10000);
+
+			for(int i = 0; i < set.length; i += 2){
+				bs.set(set[i], set[i + 1] + 1);
+			}
+
+			bs.flip(ANY[0], ANY[1] + 1);
+			return toRanges(bs);
+		}
+
+		private static int[] toRanges(BitSet bs){
+			List<Integer> ranges = new ArrayList<>();
+
+			for(int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i)){
+				int j = bs.nextClearBit(i);
+				ranges.add(i);
+				ranges.add(j - 1);
+				i = j;
+			}
+
+			return ranges.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+	}
+
+}
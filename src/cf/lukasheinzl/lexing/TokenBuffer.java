@@ -0,0 +1,319 @@
+package cf.lukasheinzl.lexing;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * This class stores the tokens of one source in primitive arrays: the id of their type, their start offset, their
+ * length and the id of their value. No {@link cf.lukasheinzl.lexing.Token Token} objects are kept, they are created
+ * when they are requested. Values up to a certain length are interned when a token is added, so a keyword that occurs
+ * thousands of times only exists once.<br>
+ * Adding tokens is not thread-safe. Reading does not change the buffer, so a filled buffer can be read by multiple
+ * threads at once if it was handed to them safely, e.g. through an {@link java.util.concurrent.ExecutorService
+ * ExecutorService}.<br>
+ * A TokenBuffer can be filled directly by a lexer:
+ * 
+ * <pre>
+ * TokenBuffer tokens = new TokenBuffer(input);
+ * new Lexer(input, data, true).forEach(tokens);
+ * </pre>
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class TokenBuffer extends AbstractList<Token> implements RandomAccess, TokenVisitor{
+
+	// longer values are not interned, they rarely repeat (e.g. comments)
+	private static final int		MAX_INTERNED_LENGTH	= 64;
+
+	private CharSequence			source;
+
+	private int[]					typeIds;
+	private int[]					starts;
+	private int[]					lengths;
+
+	// the index of the interned value of every token in values, -1 if the value is too long
+	private int[]					valueIds;
+	private int						size;
+
+	private List<TokenType>			types;
+	private Map<TokenType, Integer>	ids;
+
+	// the interned values and an open addressing hash table of their index + 1, 0 is an empty slot
+	private String[]				values;
+	private int						valueCount;
+	private int[]					interned;
+
+	/**
+	 * Constructs a new, empty TokenBuffer for tokens of the given source.
+	 * 
+	 * @param source
+	 *            The source of the tokens, it should not be modified as long as this buffer is in use
+	 */
+	public TokenBuffer(CharSequence source){
+		this.source = source;
+		this.typeIds = new int[16];
+		this.starts = new int[16];
+		this.lengths = new int[16];
+		this.valueIds = new int[16];
+		this.types = new ArrayList<>();
+		this.ids = new HashMap<>();
+		this.values = new String[32];
+		this.interned = new int[64];
+	}
+
+	/**
+	 * Adds a token to the end of this buffer, its value is interned if it is short enough.
+	 * 
+	 * @param type
+	 *            The type of the token
+	 * @param start
+	 *            The offset of the first character of the token in the source (inclusive)
+	 * @param end
+	 *            The offset after the last character of the token in the source (exclusive)
+	 */
+	public void add(TokenType type, int start, int end){
+		if(size == starts.length){
+			int capacity = Math.max(16, size * 2);
+			typeIds = copy(typeIds, capacity);
+			starts = copy(starts, capacity);
+			lengths = copy(lengths, capacity);
+			valueIds = copy(valueIds, capacity);
+		}
+
+		typeIds[size] = getTypeId(type);
+		starts[size] = start;
+		lengths[size] = end - start;
+		valueIds[size] = end - start > MAX_INTERNED_LENGTH ? -1 : intern(start, end - start);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Adds the token to the end of this buffer. The source has to be the source of this buffer.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             If the token is from another source, e.g. from a lexer reading from a {@link java.io.Reader Reader}
+	 */
+	@Override
+	public boolean visit(TokenType type, CharSequence source, int start, int end){
+		if(source != this.source){
+			throw new IllegalArgumentException("The token is not from the source of this buffer");
+		}
+
+		add(type, start, end);
+		return true;
+	}
+
+	/**
+	 * Returns the source of the tokens.
+	 * 
+	 * @return The source
+	 */
+	public CharSequence getSource(){
+		return source;
+	}
+
+	/**
+	 * Returns the type of the token at the given index.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The type of the token
+	 */
+	public TokenType getType(int index){
+		return types.get(typeIds[checkIndex(index)]);
+	}
+
+	/**
+	 * Returns the id of the type of the token at the given index. Equal types have equal ids within one buffer.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The id of the type of the token
+	 */
+	public int getTypeId(int index){
+		return typeIds[checkIndex(index)];
+	}
+
+	/**
+	 * Returns the id the given type has in this buffer, a new id is assigned if the type is not used yet.
+	 * 
+	 * @param type
+	 *            The type
+	 * @return The id of the type
+	 */
+	public int getTypeId(TokenType type){
+		Integer id = ids.get(type);
+
+		if(id == null){
+			id = types.size();
+			types.add(type);
+			ids.put(type, id);
+		}
+
+		return id;
+	}
+
+	/**
+	 * Returns the offset of the first character of the token at the given index.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The start offset (inclusive)
+	 */
+	public int getStart(int index){
+		return starts[checkIndex(index)];
+	}
+
+	/**
+	 * Returns the offset after the last character of the token at the given index.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The end offset (exclusive)
+	 */
+	public int getEnd(int index){
+		return starts[checkIndex(index)] + lengths[index];
+	}
+
+	/**
+	 * Returns the value of the token at the given index. Short values are interned, so the same instance is returned
+	 * for equal values.
+	 * 
+	 * @param index
+	 *            The index of the token
+	 * @return The value of the token
+	 */
+	public String getValue(int index){
+		int id = valueIds[checkIndex(index)];
+
+		if(id == -1){
+			int start = starts[index];
+			return source.subSequence(start, start + lengths[index]).toString();
+		}
+
+		return values[id];
+	}
+
+	/**
+	 * Returns the token at the given index. A new {@link cf.lukasheinzl.lexing.Token Token} is created for every call.
+	 */
+	@Override
+	public Token get(int index){
+		int start = getStart(index);
+		return new Token(getValue(index), types.get(typeIds[index]), start, start + lengths[index]);
+	}
+
+	/**
+	 * Shrinks the arrays of this buffer to the number of tokens, like {@link java.util.ArrayList#trimToSize()}.
+	 */
+	public void trimToSize(){
+		typeIds = copy(typeIds, size);
+		starts = copy(starts, size);
+		lengths = copy(lengths, size);
+		valueIds = copy(valueIds, size);
+	}
+
+	@Override
+	public int size(){
+		return size;
+	}
+
+	@Override
+	public void clear(){
+		size = 0;
+		modCount++;
+	}
+
+	private int checkIndex(int index){
+		if(index < 0 || index >= size){
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the index of the value in the given range of the source in values, it is added if it is not interned yet.
+	 */
+	private int intern(int start, int length){
+		int hash = 0;
+		for(int i = 0; i < length; i++){
+			hash = 31 * hash + source.charAt(start + i);
+		}
+
+		int mask = interned.length - 1;
+		int slot = (hash ^ hash >>> 16) & mask;
+
+		for(int id = interned[slot] - 1; id != -1; id = interned[slot] - 1){
+			String s = values[id];
+
+			if(s.hashCode() == hash && equals(s, start, length)){
+				return id;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		if(valueCount == values.length){
+			String[] tmp = new String[valueCount * 2];
+			System.arraycopy(values, 0, tmp, 0, valueCount);
+			values = tmp;
+		}
+
+		int id = valueCount++;
+		values[id] = source.subSequence(start, start + length).toString();
+		interned[slot] = id + 1;
+
+		if(valueCount * 2 > interned.length){
+			rehash();
+		}
+
+		return id;
+	}
+
+	/**
+	 * Checks if the given string equals the chars of the source in the given range.
+	 */
+	private boolean equals(String s, int start, int length){
+		if(s.length() != length){
+			return false;
+		}
+
+		for(int i = 0; i < length; i++){
+			if(s.charAt(i) != source.charAt(start + i)){
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void rehash(){
+		interned = new int[interned.length * 2];
+		int mask = interned.length - 1;
+
+		for(int id = 0; id < valueCount; id++){
+			int hash = values[id].hashCode();
+			int slot = (hash ^ hash >>> 16) & mask;
+
+			while(interned[slot] != 0){
+				slot = (slot + 1) & mask;
+			}
+
+			interned[slot] = id + 1;
+		}
+	}
+
+	private int[] copy(int[] array, int length){
+		int[] tmp = new int[length];
+		System.arraycopy(array, 0, tmp, 0, size);
+		return tmp;
+	}
+
+}
@@ -1,5 +1,6 @@
 package cf.lukasheinzl.lexing;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -11,8 +12,11 @@ import java.util.regex.Pattern;
  */
 public class TokenData{
 
-	private Pattern		pattern;
-	private TokenType	type;
+	private Pattern					pattern;
+	private TokenType				type;
+
+	// every thread reuses its own matcher
+	private ThreadLocal<Matcher>	matcher;
 
 	/**
 	 * Constructs a new TokenData object with the given value and type. It isused to tell a lexer how to split its input
@@ -26,6 +30,7 @@ public class TokenData{
 	public TokenData(Pattern pattern, TokenType type){
 		this.pattern = pattern;
 		this.type = type;
+		this.matcher = new ThreadLocal<>();
 	}
 
 	/**
@@ -37,6 +42,28 @@ public class TokenData{
 		return pattern;
 	}
 
+	/**
+	 * Returns a matcher of this template's pattern that is reset to the given input. The matcher is cached and reused by
+	 * the next call from the same thread, so it should not be kept. It keeps a reference to the input until it is reset,
+	 * so <code>reset("")</code> should be called on it when it is no longer needed, otherwise a large input stays in
+	 * memory as long as the thread lives.
+	 * 
+	 * @param input
+	 *            The input to match
+	 * @return The matcher
+	 */
+	public Matcher getMatcher(CharSequence input){
+		Matcher m = matcher.get();
+
+		if(m == null){
+			m = pattern.matcher(input);
+			matcher.set(m);
+			return m;
+		}
+
+		return m.reset(input);
+	}
+
 	/**
 	 * Returns the type of this token template
 	 * 
@@ -0,0 +1,28 @@
+package cf.lukasheinzl.lexing;
+
+/**
+ * This interface is used to receive tokens from a {@link cf.lukasheinzl.lexing.Lexer Lexer} without creating a
+ * {@link cf.lukasheinzl.lexing.Token Token} object for each of them.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public interface TokenVisitor{
+
+	/**
+	 * This method is called for every token. The source is only guaranteed to contain the token for the duration of this
+	 * call, if the lexer reads from a {@link java.io.Reader Reader} it is the lexer's buffer and will be reused.
+	 * 
+	 * @param type
+	 *            The type of the token
+	 * @param source
+	 *            The characters the token was lexed from
+	 * @param start
+	 *            The offset of the first character of the token in the source (inclusive)
+	 * @param end
+	 *            The offset after the last character of the token in the source (exclusive)
+	 * @return True to continue lexing, false to stop
+	 */
+	boolean visit(TokenType type, CharSequence source, int start, int end);
+
+}
@@ -0,0 +1,477 @@
+package cf.lukasheinzl.parsing;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.RandomAccess;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class stores abstract syntax trees in int arrays instead of separate objects. Every node is an index into the
+ * arrays which contain its kind, a value that can be used freely (e.g. the index of a token), its parent, its first and
+ * last child and its next sibling. A node uses 24 bytes this way, an {@link cf.lukasheinzl.parsing.AstNode AstNode}
+ * with its list of children three to four times as much.<br>
+ * Nodes can only be added, not removed. {@link #getNode(int)} returns an AstNode view of a node for code that works on
+ * AstNodes.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class AstArena{
+
+	/**
+	 * The index used for parents, children and siblings that do not exist.
+	 */
+	public static final int	NONE	= -1;
+
+	private int[]			kinds;
+	private int[]			values;
+	private int[]			parents;
+	private int[]			firstChildren;
+	private int[]			lastChildren;
+	private int[]			nextSiblings;
+	private int				size;
+
+	/**
+	 * Constructs a new, empty AstArena.
+	 */
+	public AstArena(){
+		this(16);
+	}
+
+	/**
+	 * Constructs a new, empty AstArena with room for the given number of nodes.
+	 * 
+	 * @param capacity
+	 *            The number of nodes that can be added before the arrays have to grow
+	 */
+	public AstArena(int capacity){
+		capacity = Math.max(capacity, 1);
+		kinds = new int[capacity];
+		values = new int[capacity];
+		parents = new int[capacity];
+		firstChildren = new int[capacity];
+		lastChildren = new int[capacity];
+		nextSiblings = new int[capacity];
+	}
+
+	/**
+	 * Converts the tree with the given root into an arena. The tree is not traversed recursively, so it can be of any
+	 * depth.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @param kind
+	 *            A function returning the kind of a node, e.g. an id of its class
+	 * @return The arena, the root has the index 0
+	 */
+	public static AstArena of(AstNode root, ToIntFunction<AstNode> kind){
+		AstArena arena = new AstArena();
+		Deque<AstNode> nodes = new ArrayDeque<>();
+
+		// the parent of every node on the stack, at the same depth
+		int[] parents = new int[16];
+		int top = 0;
+
+		nodes.push(root);
+		parents[top++] = NONE;
+
+		while(!nodes.isEmpty()){
+			AstNode n = nodes.pop();
+			int index = arena.add(parents[--top], kind.applyAsInt(n), 0);
+			List<AstNode> children = n.getChildren();
+
+			if(top + children.size() > parents.length){
+				parents = Arrays.copyOf(parents, Math.max(parents.length * 2, top + children.size()));
+			}
+
+			// pushed in reverse, so the first child is added next
+			for(int i = children.size() - 1; i >= 0; i--){
+				nodes.push(children.get(i));
+				parents[top++] = index;
+			}
+		}
+
+		return arena;
+	}
+
+	/**
+	 * Adds a node as the last child of the given parent.
+	 * 
+	 * @param parent
+	 *            The index of the parent or {@link #NONE} to add a root
+	 * @param kind
+	 *            The kind of the node
+	 * @param value
+	 *            The value of the node
+	 * @return The index of the new node
+	 */
+	public int add(int parent, int kind, int value){
+		if(parent != NONE){
+			checkIndex(parent);
+		}
+
+		if(size == kinds.length){
+			int capacity = size * 2;
+			kinds = copy(kinds, capacity);
+			values = copy(values, capacity);
+			parents = copy(parents, capacity);
+			firstChildren = copy(firstChildren, capacity);
+			lastChildren = copy(lastChildren, capacity);
+			nextSiblings = copy(nextSiblings, capacity);
+		}
+
+		int n = size++;
+		kinds[n] = kind;
+		values[n] = value;
+		parents[n] = parent;
+		firstChildren[n] = NONE;
+		lastChildren[n] = NONE;
+		nextSiblings[n] = NONE;
+
+		if(parent != NONE){
+			if(lastChildren[parent] == NONE){
+				firstChildren[parent] = n;
+			} else{
+				nextSiblings[lastChildren[parent]] = n;
+			}
+
+			lastChildren[parent] = n;
+		}
+
+		return n;
+	}
+
+	/**
+	 * Returns the number of nodes in this arena.
+	 * 
+	 * @return The number of nodes
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Returns the kind of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The kind
+	 */
+	public int getKind(int node){
+		return kinds[checkIndex(node)];
+	}
+
+	/**
+	 * Returns the value of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The value
+	 */
+	public int getValue(int node){
+		return values[checkIndex(node)];
+	}
+
+	/**
+	 * Returns the parent of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The index of the parent or {@link #NONE} if the node is a root
+	 */
+	public int getParent(int node){
+		return parents[checkIndex(node)];
+	}
+
+	/**
+	 * Returns the first child of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The index of the first child or {@link #NONE} if the node has no children
+	 */
+	public int getFirstChild(int node){
+		return firstChildren[checkIndex(node)];
+	}
+
+	/**
+	 * Returns the next sibling of the given node.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The index of the next sibling or {@link #NONE} if the node is the last child of its parent
+	 */
+	public int getNextSibling(int node){
+		return nextSiblings[checkIndex(node)];
+	}
+
+	/**
+	 * Returns an iterator over the indices of the subtree with the given root in pre-order. The iterator only follows
+	 * the parent, child and sibling indices, it does not use a stack.
+	 * 
+	 * @param root
+	 *            The index of the root of the subtree
+	 * @return The indices of the nodes of the subtree
+	 */
+	public PrimitiveIterator.OfInt preOrder(int root){
+		checkIndex(root);
+
+		return new PrimitiveIterator.OfInt(){
+
+			private int	next	= root;
+
+			@Override
+			public boolean hasNext(){
+				return next != NONE;
+			}
+
+			@Override
+			public int nextInt(){
+				if(next == NONE){
+					throw new NoSuchElementException();
+				}
+
+				int n = next;
+
+				if(firstChildren[n] != NONE){
+					next = firstChildren[n];
+					return n;
+				}
+
+				int m = n;
+				while(m != root && nextSiblings[m] == NONE){
+					m = parents[m];
+				}
+
+				next = m == root ? NONE : nextSiblings[m];
+				return n;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns an AstNode view of the given node. The views are created when requested, calling this twice returns two
+	 * equal views.
+	 * 
+	 * @param node
+	 *            The index of the node
+	 * @return The view of the node
+	 */
+	public Node getNode(int node){
+		return new Node(checkIndex(node));
+	}
+
+	/**
+	 * Shrinks the arrays of this arena to the number of nodes.
+	 */
+	public void trimToSize(){
+		kinds = copy(kinds, size);
+		values = copy(values, size);
+		parents = copy(parents, size);
+		firstChildren = copy(firstChildren, size);
+		lastChildren = copy(lastChildren, size);
+		nextSiblings = copy(nextSiblings, size);
+	}
+
+	private int checkIndex(int node){
+		if(node < 0 || node >= size){
+			throw new IndexOutOfBoundsException("Node: " + node + ", Size: " + size);
+		}
+
+		return node;
+	}
+
+	private int[] copy(int[] array, int length){
+		int[] tmp = new int[Math.max(length, 1)];
+		System.arraycopy(array, 0, tmp, 0, size);
+		return tmp;
+	}
+
+	/**
+	 * An AstNode view of a node in an arena. Its children can not be modified.
+	 * 
+	 * @author Lukas Heinzl
+	 *
+	 */
+	public final class Node extends AstNode{
+
+		private int	index;
+
+		private Node(int index){
+			super(null);
+			this.index = index;
+			this.children = new Children(index);
+		}
+
+		/**
+		 * Returns the arena this node belongs to.
+		 * 
+		 * @return The arena
+		 */
+		public AstArena getArena(){
+			return AstArena.this;
+		}
+
+		/**
+		 * Returns the index of this node in its arena.
+		 * 
+		 * @return The index
+		 */
+		public int getIndex(){
+			return index;
+		}
+
+		/**
+		 * Returns the kind of this node.
+		 * 
+		 * @return The kind
+		 */
+		public int getKind(){
+			return kinds[index];
+		}
+
+		/**
+		 * Returns the value of this node.
+		 * 
+		 * @return The value
+		 */
+		public int getValue(){
+			return values[index];
+		}
+
+		/**
+		 * Returns the parent of this node.
+		 * 
+		 * @return The parent or null if this node is a root
+		 */
+		public Node getParent(){
+			return parents[index] == NONE ? null : new Node(parents[index]);
+		}
+
+		/**
+		 * Nodes of an arena can only be added with {@link AstArena#add(int, int, int)}.
+		 * 
+		 * @throws UnsupportedOperationException
+		 *             Always
+		 */
+		@Override
+		public void addChild(AstNode child){
+			throw new UnsupportedOperationException("Nodes of an AstArena can not be modified");
+		}
+
+		@Override
+		public boolean equals(Object other){
+			if(!(other instanceof Node)){
+				return false;
+			}
+
+			Node n = (Node) other;
+			return n.getArena() == getArena() && n.index == index;
+		}
+
+		@Override
+		public int hashCode(){
+			return index;
+		}
+
+		@Override
+		public String toString(){
+			return "Node " + index + " [kind=" + kinds[index] + ", value=" + values[index] + "]";
+		}
+
+	}
+
+	/**
+	 * The children of a node, they are found by following the sibling indices. The indices are collected on the first
+	 * call of {@link #get(int)} or {@link #size()}, children added to the arena later are appended to them.
+	 */
+	private final class Children extends AbstractList<AstNode> implements RandomAccess{
+
+		private int		parent;
+		private int[]	indices;
+		private int		count;
+
+		private Children(int parent){
+			this.parent = parent;
+		}
+
+		@Override
+		public AstNode get(int index){
+			update();
+
+			if(index < 0 || index >= count){
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+			}
+
+			return new Node(indices[index]);
+		}
+
+		@Override
+		public int size(){
+			update();
+			return count;
+		}
+
+		/**
+		 * Collects the children that were added since the last call.
+		 */
+		private void update(){
+			int last = count == 0 ? NONE : indices[count - 1];
+
+			if(last == lastChildren[parent]){
+				return;
+			}
+
+			if(indices == null){
+				indices = new int[4];
+			}
+
+			for(int c = last == NONE ? firstChildren[parent] : nextSiblings[last]; c != NONE; c = nextSiblings[c]){
+				if(count == indices.length){
+					indices = Arrays.copyOf(indices, count * 2);
+				}
+
+				indices[count++] = c;
+			}
+		}
+
+		@Override
+		public boolean isEmpty(){
+			return firstChildren[parent] == NONE;
+		}
+
+		@Override
+		public Iterator<AstNode> iterator(){
+			return new Iterator<AstNode>(){
+
+				private int	next	= firstChildren[parent];
+
+				@Override
+				public boolean hasNext(){
+					return next != NONE;
+				}
+
+				@Override
+				public AstNode next(){
+					if(next == NONE){
+						throw new NoSuchElementException();
+					}
+
+					Node n = new Node(next);
+					next = nextSiblings[next];
+					return n;
+				}
+
+			};
+		}
+
+	}
+
+}
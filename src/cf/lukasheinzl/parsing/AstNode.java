@@ -2,6 +2,7 @@ package cf.lukasheinzl.parsing;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This class is the base of all AST-nodes.
@@ -49,4 +50,25 @@ public class AstNode{
 		children.add(child);
 	}
 
+	/**
+	 * Returns a stream of this node and all its descendants in pre-order, see
+	 * {@link cf.lukasheinzl.parsing.AstTraversal#stream(AstNode) AstTraversal.stream}.
+	 * 
+	 * @return The nodes of this subtree
+	 */
+	public Stream<AstNode> stream(){
+		return AstTraversal.stream(this);
+	}
+
+	/**
+	 * Visits this node and all its descendants, see {@link cf.lukasheinzl.parsing.AstVisitor AstVisitor}.
+	 * 
+	 * @param visitor
+	 *            The visitor
+	 * @return False if the visitor stopped the traversal
+	 */
+	public boolean accept(AstVisitor visitor){
+		return AstTraversal.walk(this, visitor);
+	}
+
 }
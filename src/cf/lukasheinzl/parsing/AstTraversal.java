@@ -0,0 +1,305 @@
+package cf.lukasheinzl.parsing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class contains methods to traverse abstract syntax trees. None of them use recursion, so trees of any depth can
+ * be traversed. The trees should not be modified during a traversal.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class AstTraversal{
+
+	// no one should instantiate this class
+	private AstTraversal(){
+
+	}
+
+	/**
+	 * Returns the nodes of the tree in pre-order, every node comes before its children.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @return The nodes of the tree
+	 */
+	public static Iterable<AstNode> preOrder(AstNode root){
+		return () -> new Iterator<AstNode>(){
+
+			// the iterators over the children of the nodes on the path to the current node
+			private Deque<Iterator<AstNode>>	path	= new ArrayDeque<>();
+			private AstNode						next	= root;
+
+			@Override
+			public boolean hasNext(){
+				return next != null;
+			}
+
+			@Override
+			public AstNode next(){
+				if(next == null){
+					throw new NoSuchElementException();
+				}
+
+				AstNode n = next;
+				path.push(n.getChildren().iterator());
+				next = null;
+
+				while(!path.isEmpty() && next == null){
+					if(path.peek().hasNext()){
+						next = path.peek().next();
+					} else{
+						path.pop();
+					}
+				}
+
+				return n;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the nodes of the tree in post-order, every node comes after its children.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @return The nodes of the tree
+	 */
+	public static Iterable<AstNode> postOrder(AstNode root){
+		return () -> new Iterator<AstNode>(){
+
+			// the nodes on the path to the next node and the iterators over their children
+			private Deque<AstNode>				nodes	= new ArrayDeque<>();
+			private Deque<Iterator<AstNode>>	path	= new ArrayDeque<>();
+
+			{
+				nodes.push(root);
+				path.push(root.getChildren().iterator());
+			}
+
+			@Override
+			public boolean hasNext(){
+				return !nodes.isEmpty();
+			}
+
+			@Override
+			public AstNode next(){
+				if(nodes.isEmpty()){
+					throw new NoSuchElementException();
+				}
+
+				while(path.peek().hasNext()){
+					AstNode child = path.peek().next();
+					nodes.push(child);
+					path.push(child.getChildren().iterator());
+				}
+
+				path.pop();
+				return nodes.pop();
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the nodes of the tree in level-order, first the root, then its children, then their children and so on.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @return The nodes of the tree
+	 */
+	public static Iterable<AstNode> levelOrder(AstNode root){
+		return () -> new Iterator<AstNode>(){
+
+			private Deque<AstNode>	queue	= new ArrayDeque<>();
+
+			{
+				queue.add(root);
+			}
+
+			@Override
+			public boolean hasNext(){
+				return !queue.isEmpty();
+			}
+
+			@Override
+			public AstNode next(){
+				AstNode n = queue.remove();
+				queue.addAll(n.getChildren());
+				return n;
+			}
+
+		};
+	}
+
+	/**
+	 * Visits all nodes of the tree, see {@link cf.lukasheinzl.parsing.AstVisitor AstVisitor}.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @param visitor
+	 *            The visitor
+	 * @return False if the visitor stopped the traversal
+	 */
+	public static boolean walk(AstNode root, AstVisitor visitor){
+		Deque<AstNode> nodes = new ArrayDeque<>();
+		Deque<Iterator<AstNode>> path = new ArrayDeque<>();
+		AstNode next = root;
+
+		while(true){
+			if(next != null){
+				AstVisitor.Result r = visitor.enter(next);
+
+				if(r == AstVisitor.Result.STOP){
+					return false;
+				}
+
+				if(r == AstVisitor.Result.SKIP_CHILDREN){
+					if(!visitor.leave(next)){
+						return false;
+					}
+				} else{
+					nodes.push(next);
+					path.push(next.getChildren().iterator());
+				}
+			}
+
+			if(nodes.isEmpty()){
+				return true;
+			}
+
+			if(path.peek().hasNext()){
+				next = path.peek().next();
+			} else{
+				next = null;
+				path.pop();
+
+				if(!visitor.leave(nodes.pop())){
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a sequential stream of the nodes of the tree in pre-order. If the stream is made parallel, the sibling
+	 * subtrees are split among the threads.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @return The nodes of the tree
+	 */
+	public static Stream<AstNode> stream(AstNode root){
+		return StreamSupport.stream(spliterator(root), false);
+	}
+
+	/**
+	 * Returns a spliterator over the nodes of the tree in pre-order. It splits by handing off a part of the sibling
+	 * subtrees it has not visited yet.
+	 * 
+	 * @param root
+	 *            The root of the tree
+	 * @return The spliterator
+	 */
+	public static Spliterator<AstNode> spliterator(AstNode root){
+		ArrayDeque<AstNode> subtrees = new ArrayDeque<>();
+		subtrees.add(root);
+		return new SubtreeSpliterator(null, subtrees, Long.MAX_VALUE);
+	}
+
+	/**
+	 * A spliterator over a node (without its children) followed by a number of subtrees.
+	 */
+	private static final class SubtreeSpliterator implements Spliterator<AstNode>{
+
+		private AstNode				node;
+		private ArrayDeque<AstNode>	subtrees;
+		private long				estimate;
+
+		private SubtreeSpliterator(AstNode node, ArrayDeque<AstNode> subtrees, long estimate){
+			this.node = node;
+			this.subtrees = subtrees;
+			this.estimate = estimate;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super AstNode> action){
+			AstNode n = node;
+
+			if(n != null){
+				node = null;
+			} else{
+				n = subtrees.poll();
+
+				if(n == null){
+					return false;
+				}
+
+				// the children are visited next, so they are added to the front in reverse order
+				List<AstNode> children = n.getChildren();
+				if(!(children instanceof RandomAccess)){
+					children = new ArrayList<>(children);
+				}
+
+				for(int i = children.size() - 1; i >= 0; i--){
+					subtrees.push(children.get(i));
+				}
+			}
+
+			action.accept(n);
+			return true;
+		}
+
+		@Override
+		public Spliterator<AstNode> trySplit(){
+			if(node == null && subtrees.size() == 1){
+				List<AstNode> children = subtrees.peek().getChildren();
+
+				if(children.size() < 2){
+					return null;
+				}
+
+				// the root of the only subtree is visited first, so it goes to the first half with some of its children
+				node = subtrees.poll();
+				subtrees.addAll(children);
+			}
+
+			if(subtrees.size() < 2){
+				return null;
+			}
+
+			ArrayDeque<AstNode> prefix = new ArrayDeque<>();
+			for(int i = subtrees.size() / 2; i > 0; i--){
+				prefix.add(subtrees.poll());
+			}
+
+			estimate >>>= 1;
+			SubtreeSpliterator s = new SubtreeSpliterator(node, prefix, estimate);
+			node = null;
+			return s;
+		}
+
+		@Override
+		public long estimateSize(){
+			return estimate;
+		}
+
+		@Override
+		public int characteristics(){
+			return ORDERED | NONNULL;
+		}
+
+	}
+
+}
@@ -0,0 +1,56 @@
+package cf.lukasheinzl.parsing;
+
+/**
+ * This interface is used to visit the nodes of an abstract syntax tree, see
+ * {@link cf.lukasheinzl.parsing.AstNode#accept(AstVisitor) AstNode.accept}. The tree is traversed without recursion, so
+ * it can be of any depth.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public interface AstVisitor{
+
+	/**
+	 * The results of {@link AstVisitor#enter(AstNode)}, they decide how the traversal continues.
+	 * 
+	 * @author Lukas Heinzl
+	 *
+	 */
+	enum Result{
+		/**
+		 * Visit the children of the node next
+		 */
+		CONTINUE,
+
+		/**
+		 * Do not visit the children of the node, leave it right away
+		 */
+		SKIP_CHILDREN,
+
+		/**
+		 * Stop the traversal, no other node is entered or left
+		 */
+		STOP
+	}
+
+	/**
+	 * This method is called before the children of a node are visited.
+	 * 
+	 * @param node
+	 *            The node
+	 * @return How to continue the traversal
+	 */
+	Result enter(AstNode node);
+
+	/**
+	 * This method is called after the children of a node were visited (or skipped).
+	 * 
+	 * @param node
+	 *            The node
+	 * @return False to stop the traversal
+	 */
+	default boolean leave(AstNode node){
+		return true;
+	}
+
+}
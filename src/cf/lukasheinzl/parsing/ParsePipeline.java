@@ -0,0 +1,110 @@
+package cf.lukasheinzl.parsing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This class is used to parse many independent statements on multiple threads. The statements are split into batches
+ * that are parsed by an {@link java.util.concurrent.ExecutorService ExecutorService}, every statement is parsed with
+ * the first parser of a {@link cf.lukasheinzl.parsing.ParserRegistry ParserRegistry} that can parse it.<br>
+ * An exception thrown while parsing a statement does not stop the other statements from being parsed, it is stored in
+ * the {@link cf.lukasheinzl.parsing.ParseResult ParseResult} of the statement instead. The parsers have to be thread
+ * safe.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class ParsePipeline{
+
+	// the number of batches per thread, more batches balance the work better if some statements take longer
+	private static final int	BATCHES_PER_THREAD	= 4;
+
+	private ParserRegistry		registry;
+
+	/**
+	 * Constructs a new ParsePipeline.
+	 * 
+	 * @param registry
+	 *            The parsers to use
+	 */
+	public ParsePipeline(ParserRegistry registry){
+		this.registry = registry;
+	}
+
+	/**
+	 * Parses all statements using the {@link java.util.concurrent.ForkJoinPool#commonPool() common pool}.
+	 * 
+	 * @param statements
+	 *            The statements to parse
+	 * @return The results in the order of the statements
+	 */
+	public List<ParseResult> parse(List<Statement> statements){
+		return parse(statements, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Parses all statements using the given executor.
+	 * 
+	 * @param statements
+	 *            The statements to parse
+	 * @param executor
+	 *            The executor to parse the statements on
+	 * @return The results in the order of the statements
+	 * @throws IllegalStateException
+	 *             If the thread is interrupted while waiting for the results or a batch failed with a checked exception
+	 */
+	public List<ParseResult> parse(List<Statement> statements, ExecutorService executor){
+		ParseResult[] results = new ParseResult[statements.size()];
+		int batches = Math.min(statements.size(), Runtime.getRuntime().availableProcessors() * BATCHES_PER_THREAD);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for(int i = 0; i < batches; i++){
+			int from = (int) ((long) statements.size() * i / batches);
+			int to = (int) ((long) statements.size() * (i + 1) / batches);
+			futures.add(executor.submit(() -> parse(statements, from, to, results)));
+		}
+
+		try{
+			for(Future<?> f: futures){
+				f.get();
+			}
+		} catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while parsing", e);
+		} catch(ExecutionException e){
+			// exceptions of the parsers are stored in the results, errors and failures outside of them get here
+			Throwable cause = e.getCause();
+
+			if(cause instanceof Error){
+				throw (Error) cause;
+			} else if(cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+
+			throw new IllegalStateException(cause);
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Parses the statements in the given range.
+	 */
+	private void parse(List<Statement> statements, int from, int to, ParseResult[] results){
+		for(int i = from; i < to; i++){
+			Statement s = statements.get(i);
+
+			try{
+				results[i] = new ParseResult(s, registry.parse(s), null);
+			} catch(RuntimeException e){
+				results[i] = new ParseResult(s, null, e);
+			}
+		}
+	}
+
+}
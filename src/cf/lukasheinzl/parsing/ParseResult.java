@@ -0,0 +1,72 @@
+package cf.lukasheinzl.parsing;
+
+/**
+ * This class holds the result of parsing one statement, either the AST or the exception that occurred.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class ParseResult{
+
+	private Statement			statement;
+	private AstNode				node;
+	private RuntimeException	error;
+
+	/**
+	 * Constructs a new ParseResult.
+	 * 
+	 * @param statement
+	 *            The statement that was parsed
+	 * @param node
+	 *            The AST or null if the statement could not be parsed
+	 * @param error
+	 *            The exception that occurred or null if the statement was parsed
+	 */
+	public ParseResult(Statement statement, AstNode node, RuntimeException error){
+		this.statement = statement;
+		this.node = node;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the statement that was parsed.
+	 * 
+	 * @return The statement
+	 */
+	public Statement getStatement(){
+		return statement;
+	}
+
+	/**
+	 * Returns the AST of the statement.
+	 * 
+	 * @return The AST or null if the statement could not be parsed
+	 */
+	public AstNode getNode(){
+		return node;
+	}
+
+	/**
+	 * Returns the exception that occurred while parsing the statement.
+	 * 
+	 * @return The exception or null if the statement was parsed
+	 */
+	public RuntimeException getError(){
+		return error;
+	}
+
+	/**
+	 * Checks if the statement was parsed.
+	 * 
+	 * @return True if there was no error
+	 */
+	public boolean isSuccess(){
+		return error == null;
+	}
+
+	@Override
+	public String toString(){
+		return isSuccess() ? String.valueOf(node) : error.toString();
+	}
+
+}
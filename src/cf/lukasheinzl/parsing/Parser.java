@@ -1,5 +1,9 @@
 package cf.lukasheinzl.parsing;
 
+import java.util.Collection;
+
+import cf.lukasheinzl.lexing.TokenType;
+
 /**
  * This interface is the base of all parsers.
  * 
@@ -26,4 +30,14 @@ public interface Parser{
 	 */
 	AstNode parse(Statement s);
 
+	/**
+	 * Returns the types the first token of a statement can have if this parser can parse it. This is used by the
+	 * {@link cf.lukasheinzl.parsing.ParserRegistry ParserRegistry} to only ask the parsers that could parse a statement.
+	 * 
+	 * @return The possible types of the first token or null if a statement can start with any token (or be empty)
+	 */
+	default Collection<TokenType> getLeadingTypes(){
+		return null;
+	}
+
 }
@@ -0,0 +1,122 @@
+package cf.lukasheinzl.parsing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cf.lukasheinzl.lexing.TokenType;
+
+/**
+ * This class is used to find the parser for a statement. The parsers are indexed by the type of the first token of the
+ * statements they can parse (see {@link cf.lukasheinzl.parsing.Parser#getLeadingTypes() getLeadingTypes}), so only the
+ * parsers that could parse a statement are asked if they can.<br>
+ * The candidates for a type are computed the first time a statement starting with it is parsed and are cached, types no
+ * parser accepts are cached as well. The parsers are asked in the order they were registered. A registry can be used by
+ * multiple threads, but all parsers should be registered before.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class ParserRegistry{
+
+	private static final Parser[]		NONE			= new Parser[0];
+
+	private List<Parser>				parsers			= new ArrayList<>();
+	private List<Collection<TokenType>>	leadingTypes	= new ArrayList<>();
+
+	// the candidates by the type of the first token, statements without tokens use the parsers accepting any type
+	private Map<TokenType, Parser[]>	candidates		= new ConcurrentHashMap<>();
+	private volatile Parser[]			any;
+
+	/**
+	 * Registers a parser. Parsers registered first are asked first.
+	 * 
+	 * @param p
+	 *            The parser to register
+	 */
+	public synchronized void register(Parser p){
+		parsers.add(p);
+		leadingTypes.add(p.getLeadingTypes());
+
+		candidates.clear();
+		any = null;
+	}
+
+	/**
+	 * Returns the first parser that can parse the given statement.
+	 * 
+	 * @param s
+	 *            The statement to parse
+	 * @return The parser or null if no parser can parse the statement
+	 */
+	public Parser getParser(Statement s){
+		for(Parser p: getCandidates(s)){
+			if(p.canParse(s)){
+				return p;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Parses the given statement with the first parser that can parse it.
+	 * 
+	 * @param s
+	 *            The statement to parse
+	 * @return The AST corresponding to the given statement
+	 * @throws IllegalStateException
+	 *             If no parser can parse the statement
+	 */
+	public AstNode parse(Statement s){
+		Parser p = getParser(s);
+
+		if(p == null){
+			throw new IllegalStateException("Could not parse: " + s);
+		}
+
+		return p.parse(s);
+	}
+
+	/**
+	 * Returns the parsers that could parse the given statement, based on the type of its first token.
+	 */
+	private Parser[] getCandidates(Statement s){
+		if(s.getTokens().isEmpty()){
+			Parser[] c = any;
+			return c != null ? c : computeCandidates(null);
+		}
+
+		TokenType type = s.getTokens().get(0).getType();
+		Parser[] c = candidates.get(type);
+		return c != null ? c : computeCandidates(type);
+	}
+
+	/**
+	 * Computes the candidates for the given type (or for empty statements if it is null) and caches them.
+	 */
+	private synchronized Parser[] computeCandidates(TokenType type){
+		List<Parser> c = new ArrayList<>();
+
+		for(int i = 0; i < parsers.size(); i++){
+			Collection<TokenType> types = leadingTypes.get(i);
+
+			if(types == null || type != null && types.contains(type)){
+				c.add(parsers.get(i));
+			}
+		}
+
+		Parser[] result = c.isEmpty() ? NONE : c.toArray(new Parser[c.size()]);
+
+		if(type == null){
+			any = result;
+		} else{
+			candidates.put(type, result);
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,247 @@
+package cf.lukasheinzl.parsing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import cf.lukasheinzl.lexing.Token;
+import cf.lukasheinzl.lexing.TokenBuffer;
+import cf.lukasheinzl.lexing.TokenType;
+
+/**
+ * This class is used to split a list of tokens into statements. A token is a delimiter if it equals one of the given
+ * delimiters, the delimiters are looked up by their type first, so most tokens are rejected without comparing values.
+ * <br>
+ * The statements are views of the token list, no tokens are copied. Unlike
+ * {@link cf.lukasheinzl.parsing.Statement#toStatements(List, List) Statement.toStatements} the tokens after the last
+ * delimiter are returned as a statement as well.
+ * 
+ * @author Lukas Heinzl
+ *
+ */
+public class StatementSplitter{
+
+	// the trimmed values of the delimiters by their type
+	private Map<TokenType, String[]>	delimiters;
+
+	/**
+	 * Constructs a new StatementSplitter.
+	 * 
+	 * @param delimiters
+	 *            The tokens that end a statement, a token ends a statement if it
+	 *            {@link cf.lukasheinzl.lexing.Token#equals(Object) equals} one of them
+	 */
+	public StatementSplitter(Collection<Token> delimiters){
+		Map<TokenType, List<String>> tmp = new HashMap<>();
+
+		for(Token t: delimiters){
+			List<String> values = tmp.get(t.getType());
+
+			if(values == null){
+				values = new ArrayList<>();
+				tmp.put(t.getType(), values);
+			}
+
+			values.add(t.getValue().trim());
+		}
+
+		this.delimiters = new HashMap<>();
+		for(Map.Entry<TokenType, List<String>> e: tmp.entrySet()){
+			this.delimiters.put(e.getKey(), e.getValue().toArray(new String[e.getValue().size()]));
+		}
+	}
+
+	/**
+	 * Checks if the given token ends a statement.
+	 * 
+	 * @param token
+	 *            The token to check
+	 * @return True if the token is a delimiter
+	 */
+	public boolean isDelimiter(Token token){
+		String[] values = delimiters.get(token.getType());
+
+		if(values == null){
+			return false;
+		}
+
+		String value = token.getValue().trim();
+		for(String v: values){
+			if(v.equals(value)){
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Splits the tokens into statements.
+	 * 
+	 * @param tokens
+	 *            The tokens to split, they should not be modified as long as the statements are in use
+	 * @return The statements
+	 */
+	public List<Statement> split(List<Token> tokens){
+		List<Statement> stmts = new ArrayList<>();
+		iterator(tokens).forEachRemaining(stmts::add);
+		return stmts;
+	}
+
+	/**
+	 * Returns a stream of the statements of the given tokens. The statements are found while the stream is consumed.
+	 * 
+	 * @param tokens
+	 *            The tokens to split, they should not be modified as long as the stream or the statements are in use
+	 * @return The statements
+	 */
+	public Stream<Statement> stream(List<Token> tokens){
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(tokens),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Returns an iterator over the statements of the given tokens. The statements are found while iterating.
+	 * 
+	 * @param tokens
+	 *            The tokens to split, they should not be modified as long as the iterator or the statements are in use
+	 * @return The statements
+	 */
+	public Iterator<Statement> iterator(List<Token> tokens){
+		if(tokens instanceof TokenBuffer){
+			return new StatementIterator(tokens, new BufferMatcher((TokenBuffer) tokens));
+		}
+
+		return new StatementIterator(tokens, null);
+	}
+
+	/**
+	 * Finds the end of the statements by moving through the token list.
+	 */
+	private final class StatementIterator implements Iterator<Statement>{
+
+		private List<Token>		tokens;
+		private BufferMatcher	matcher;
+		private int				pos;
+
+		private StatementIterator(List<Token> tokens, BufferMatcher matcher){
+			this.tokens = tokens;
+			this.matcher = matcher;
+		}
+
+		@Override
+		public boolean hasNext(){
+			return pos < tokens.size();
+		}
+
+		@Override
+		public Statement next(){
+			if(!hasNext()){
+				throw new NoSuchElementException();
+			}
+
+			int start = pos;
+			int size = tokens.size();
+
+			while(pos < size){
+				boolean delimiter = matcher != null ? matcher.isDelimiter(pos) : isDelimiter(tokens.get(pos));
+				pos++;
+
+				if(delimiter){
+					break;
+				}
+			}
+
+			return new Statement(tokens.subList(start, pos));
+		}
+
+	}
+
+	/**
+	 * Checks the tokens of a {@link cf.lukasheinzl.lexing.TokenBuffer TokenBuffer} by their type id and compares their
+	 * chars in the source, so no token or string has to be created.
+	 */
+	private final class BufferMatcher{
+
+		private TokenBuffer		buffer;
+		private CharSequence	source;
+
+		// the delimiter values by the type id in the buffer, an id is resolved when its first token is checked
+		private String[][]		values;
+		private boolean[]		resolved;
+
+		private BufferMatcher(TokenBuffer buffer){
+			this.buffer = buffer;
+			this.source = buffer.getSource();
+			this.values = new String[16][];
+			this.resolved = new boolean[16];
+		}
+
+		private boolean isDelimiter(int index){
+			int id = buffer.getTypeId(index);
+
+			if(id >= resolved.length){
+				String[][] tmp = new String[id * 2][];
+				System.arraycopy(values, 0, tmp, 0, values.length);
+				values = tmp;
+
+				boolean[] tmp2 = new boolean[id * 2];
+				System.arraycopy(resolved, 0, tmp2, 0, resolved.length);
+				resolved = tmp2;
+			}
+
+			if(!resolved[id]){
+				values[id] = delimiters.get(buffer.getType(index));
+				resolved[id] = true;
+			}
+
+			String[] v = values[id];
+			if(v == null){
+				return false;
+			}
+
+			int start = buffer.getStart(index);
+			int end = buffer.getEnd(index);
+
+			while(start < end && source.charAt(start) <= ' '){
+				start++;
+			}
+
+			while(end > start && source.charAt(end - 1) <= ' '){
+				end--;
+			}
+
+			for(String s: v){
+				if(matches(s, start, end)){
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		private boolean matches(String s, int start, int end){
+			if(s.length() != end - start){
+				return false;
+			}
+
+			for(int i = 0; i < s.length(); i++){
+				if(s.charAt(i) != source.charAt(start + i)){
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+	}
+
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import cf.lukasheinzl.lexing.Lexer;
 import cf.lukasheinzl.lexing.Token;
+import cf.lukasheinzl.lexing.TokenAutomaton;
 import cf.lukasheinzl.lexing.TokenData;
 import cf.lukasheinzl.lexing.TokenType;
 
@@ -35,6 +36,45 @@ public class FileParser{
 	 *         file)
 	 */
 	public static String doFile(String content, Formatter[] fmts, List<TokenData> data, String styles){
+		return doFile(content, fmts, data, null, styles);
+	}
+
+	/**
+	 * This method is used to format files.
+	 * 
+	 * @param content
+	 *            The file content as a string
+	 * @param fmts
+	 *            The {@link cf.lukasheinzl.syntax.Formatter Formatters} to use for formatting
+	 * @param automaton
+	 *            The compiled {@link cf.lukasheinzl.lexing.TokenData TokenData} to use for lexing
+	 * @param styles
+	 *            A string containing valid CSS
+	 * @return A string containing valid HTML and the formatted file content (only contains the body part of the HTML
+	 *         file)
+	 */
+	public static String doFile(String content, Formatter[] fmts, TokenAutomaton automaton, String styles){
+		return doFile(content, fmts, automaton.getData(), automaton, styles);
+	}
+
+	/**
+	 * This method is used to format files with either the plain or the compiled TokenData.
+	 * 
+	 * @param content
+	 *            The file content as a string
+	 * @param fmts
+	 *            The {@link cf.lukasheinzl.syntax.Formatter Formatters} to use for formatting
+	 * @param data
+	 *            The {@link cf.lukasheinzl.lexing.TokenData TokenData} to use for lexing if there is no automaton
+	 * @param automaton
+	 *            The compiled TokenData to use for lexing or null to use the plain TokenData
+	 * @param styles
+	 *            A string containing valid CSS
+	 * @return A string containing valid HTML and the formatted file content (only contains the body part of the HTML
+	 *         file)
+	 */
+	private static String doFile(String content, Formatter[] fmts, List<TokenData> data, TokenAutomaton automaton,
+			String styles){
 		int lineMax = content.length() - content.replace("\n", "").length();
 		int lineFormat = (lineMax + "").length();
 
@@ -49,7 +89,7 @@ public class FileParser{
 		StringBuilder sb = new StringBuilder(
 				"<div><span class='newline'>" + String.format("%" + lineFormat + "d", 1).replace(" ", "&nbsp;") + " </span>");
 
-		Lexer t = new Lexer(content, data, false);
+		Lexer t = automaton != null ? new Lexer(content, automaton, false) : new Lexer(content, data, false);
 
 		while(t.hasNextToken()){
 			out = null;
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 import cf.lukasheinzl.lexing.Token;
+import cf.lukasheinzl.lexing.TokenAutomaton;
 import cf.lukasheinzl.lexing.TokenData;
 import cf.lukasheinzl.lexing.TokenType;
 import cf.lukasheinzl.syntax.FileParser;
@@ -43,6 +44,9 @@ public class JavaFormatter implements LanguageFormatter{
 	// this contains all java related TokenData
 	private static final List<TokenData>	DATA		= new ArrayList<>();
 
+	// this contains the compiled DATA List
+	private static TokenAutomaton			AUTOMATON	= null;
+
 	// this contains all java related Formatters
 	private static Formatter[]				FMTS		= null;
 
@@ -231,6 +235,10 @@ public class JavaFormatter implements LanguageFormatter{
 			setupData();
 		}
 
+		if(AUTOMATON == null){
+			AUTOMATON = TokenAutomaton.compile(DATA);
+		}
+
 		if(FMTS == null){
 			setupFormatters();
 		}
@@ -239,7 +247,7 @@ public class JavaFormatter implements LanguageFormatter{
 			setupStyles();
 		}
 
-		return FileParser.doFile(content, FMTS, DATA, STYLES);
+		return FileParser.doFile(content, FMTS, AUTOMATON, STYLES);
 	}
 
 }